@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+#
+# Measures peak RSS and wall time of the launcher on Linux, with the default
+# JVM ergonomics and with the low-footprint launcher profile.
+#
+# Usage: src/bench/footprint.sh [jar] [runs]
+#
+# The swing-dialog path needs a display; without one a single Xvfb is started
+# for all runs when available, otherwise the path is skipped. The dialog is never answered and declines
+# itself after DIALOG_SECONDS (jbang.launch.dialog.timeout), so the wall time of
+# that path includes the timeout.
+# The native-dialog path uses a stub zenity that declines immediately.
+# The scan path runs --scan over a generated tree of SCAN_FILES (100000) small
+# Markdown files, one in a hundred with a rejected link, to check the batch
+# modes still fit the low-footprint profile's heap.
+#
+set -euo pipefail
+
+source "$(dirname "${BASH_SOURCE[0]}")/lib.sh"
+
+JAR=$(find_jar "${1:-}")
+RUNS=${2:-5}
+DIALOG_SECONDS=${DIALOG_SECONDS:-5}
+SCAN_FILES=${SCAN_FILES:-100000}
+JAVA=${JAVA:-java}
+
+if [[ -z "$JAR" || ! -f "$JAR" ]]; then
+  echo "Shaded jar not found, run ./mvnw package first or pass its path" 1>&2
+  exit 1
+fi
+
+STUBS=$(make_stubs)
+CORPUS=$(mktemp -d)
+XVFB_PID=
+cleanup() {
+  rm -rf "$STUBS" "$CORPUS"
+  if [[ -n "$XVFB_PID" ]]; then kill "$XVFB_PID" 2>/dev/null || true; fi
+}
+trap cleanup EXIT
+export PATH="$STUBS:$PATH"
+
+for ((i = 0; i < SCAN_FILES; i++)); do
+  if (( i % 100 == 0 )); then
+    mkdir "$CORPUS/$((i / 100))"
+    link="jbang:///run/Bad.java;rm"
+  else
+    link="jbang:///run/Hello$i.java"
+  fi
+  printf '# Page %d\n\nSome text before the link.\n\n[Run it](%s)\n' "$i" "$link" > "$CORPUS/$((i / 100))/page$i.md"
+done
+
+# Started outside measure(), so the X server is not part of the launcher's numbers
+if [[ -z "${DISPLAY:-}" && -z "${WAYLAND_DISPLAY:-}" ]] && command -v Xvfb >/dev/null; then
+  for n in $(seq 90 99); do
+    if [[ ! -e /tmp/.X11-unix/X$n ]]; then
+      Xvfb ":$n" -nolisten tcp >/dev/null 2>&1 &
+      XVFB_PID=$!
+      export DISPLAY=":$n"
+      sleep 1
+      break
+    fi
+  done
+fi
+
+# Prints the median wall time and median peak RSS of RUNS executions
+run_path() {
+  local profile=$1 path=$2
+  shift 2
+  local samples
+  samples=$(for _ in $(seq "$RUNS"); do measure "$@"; done)
+  printf "%-14s %-14s %9.3f %9.1f\n" "$path" "$profile" \
+    "$(cut -d' ' -f1 <<< "$samples" | median)" \
+    "$(cut -d' ' -f2 <<< "$samples" | median | awk '{ print $1 / 1024 }')"
+}
+
+printf "%-14s %-14s %9s %9s\n" "path" "profile" "wall(s)" "rss(MB)"
+for profile in default low-footprint; do
+  if [[ $profile == default ]]; then opts=(); else read -r -a opts <<< "$LOW_FOOTPRINT_OPTIONS"; fi
+  read -r -a bench <<< "$BENCH_OPTIONS"
+  opts+=("${bench[@]}")
+
+  run_path "$profile" to-url "$JAVA" ${opts[@]+"${opts[@]}"} -jar "$JAR" --to-url jbang run hello.java
+  run_path "$profile" scan "$JAVA" ${opts[@]+"${opts[@]}"} -jar "$JAR" --scan "$CORPUS"
+  run_path "$profile" headless "$JAVA" ${opts[@]+"${opts[@]}"} -Djava.awt.headless=true -jar "$JAR" jbang:///run/hello.java
+
+  run_path "$profile" native-dialog env DISPLAY="${DISPLAY:-:0}" \
+    "$JAVA" ${opts[@]+"${opts[@]}"} -Djbang.launch.confirm=zenity -jar "$JAR" jbang:///run/hello.java
+
+  if [[ -z "${DISPLAY:-}" ]]; then
+    printf "%-14s %-14s %9s %9s\n" swing-dialog "$profile" skipped "(no display)"
+  else
+    run_path "$profile" swing-dialog \
+      "$JAVA" ${opts[@]+"${opts[@]}"} -Djava.awt.headless=false -Djbang.launch.confirm=swing \
+      -Djbang.launch.dialog.timeout="$DIALOG_SECONDS" -jar "$JAR" jbang:///run/hello.java
+  fi
+done
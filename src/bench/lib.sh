@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+#
+# Shared helpers for the benchmark scripts in this directory.
+#
+
+# JVM options of the low-footprint launcher profile.
+# Keep in sync with the lowFootprintOptions anchor in jreleaser.yml.
+LOW_FOOTPRINT_OPTIONS="-XX:+UseSerialGC -XX:TieredStopAtLevel=1 -Xss512k -Xms8m -Xmx128m -XX:MinHeapFreeRatio=10 -XX:MaxHeapFreeRatio=20"
+
+# Raises the jbang:// flood limits, which hundreds of launches in a row would
+# hit. The throttle stays active, so its state file handling is still measured.
+BENCH_OPTIONS="-Djbang.launch.rate=1000000 -Djbang.launch.rate.burst=1000000 -Djbang.launch.maxTerminals=0"
+
+# Printed by the launcher for every link dropped by the flood limits.
+DROP_WARNING="WARN: Ignoring jbang:// link"
+
+# Exits if the launcher output in the given file shows a dropped link, as the
+# run would then have measured the throttle instead of a launch.
+check_not_dropped() {
+  if grep -q "$DROP_WARNING" "$1"; then
+    echo "A launch was dropped by the flood limits, raise them in BENCH_OPTIONS:" 1>&2
+    grep -m 1 "$DROP_WARNING" "$1" 1>&2
+    exit 1
+  fi
+}
+
+# Finds the shaded jar built by `./mvnw package` unless one was given.
+find_jar() {
+  if [[ -n "$1" ]]; then
+    echo "$1"
+  else
+    ls "$(dirname "${BASH_SOURCE[0]}")"/../../target/jbang-launch-*.jar 2>/dev/null | grep -v original | head -1
+  fi
+}
+
+# Creates a directory with stub `jbang` and terminal emulator executables that
+# exit immediately, so launches can be measured without opening real windows.
+# The `zenity` stub declines every confirmation.
+make_stubs() {
+  local dir
+  dir=$(mktemp -d)
+  for cmd in jbang tilix gnome-terminal konsole xfce4-terminal mate-terminal xterm; do
+    printf '#!/bin/sh\nexit 0\n' > "$dir/$cmd"
+    chmod +x "$dir/$cmd"
+  done
+  printf '#!/bin/sh\nexit 1\n' > "$dir/zenity"
+  chmod +x "$dir/zenity"
+  echo "$dir"
+}
+
+# Runs a command and prints "<wall seconds> <peak RSS in KiB>", whatever its
+# exit code, but exits if the launcher dropped the link. Uses GNU time when available, otherwise samples VmHWM from /proc while the
+# process runs (which can miss growth in the last few milliseconds).
+measure() {
+  local start end rss=0 hwm pid err
+  err=$(mktemp)
+  if [[ -x /usr/bin/time ]] && /usr/bin/time -f '%M' true >/dev/null 2>&1; then
+    local out
+    out=$(mktemp)
+    start=$(date +%s%N)
+    /usr/bin/time -o "$out" -f '%M' "$@" >/dev/null 2>"$err" || true
+    end=$(date +%s%N)
+    rss=$(tail -1 "$out")
+    rm -f "$out"
+  else
+    start=$(date +%s%N)
+    "$@" >/dev/null 2>"$err" &
+    pid=$!
+    while kill -0 "$pid" 2>/dev/null; do
+      hwm=$(awk '/^VmHWM:/ { print $2 }' "/proc/$pid/status" 2>/dev/null)
+      [[ -n "$hwm" ]] && rss=$hwm
+      sleep 0.005
+    done
+    wait "$pid" || true
+    end=$(date +%s%N)
+  fi
+  check_not_dropped "$err"
+  rm -f "$err"
+  awk -v ns=$((end - start)) -v rss="$rss" 'BEGIN { printf "%.3f %d\n", ns / 1e9, rss }'
+}
+
+# Prints the median of the numbers read from stdin, one per line.
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
@@ -0,0 +1,214 @@
+#!/usr/bin/env bash
+#
+# Measures end-to-end startup time of the launcher on Linux, for the shaded jar
+# or a jlink image, and writes the statistics as JSON so runs can be compared
+# across commits.
+#
+# Usage: src/bench/startup.sh [-n runs] [-w warmup] [-p default|low-footprint]
+#                             [-o results.json] [-i jlink-image] [jar]
+#
+# Paths measured:
+#   to-url         --to-url jbang run hello.java
+#   from-url       --from-url jbang:///run/hello.java
+#   headless       handleURI with -Djava.awt.headless=true, launching a stub terminal
+#   native-dialog  -Djava.awt.headless=false with a stub zenity that declines
+#   swing-dialog   -Djava.awt.headless=false with the Swing dialog, declined by
+#                  jbang.launch.dialog.timeout; needs a display or Xvfb
+#
+# Every path first runs its warmup iterations, then the measured runs are
+# interleaved round-robin so drift in the machine's state affects all paths
+# alike. A table is printed on stderr, the JSON on stdout or to the -o file.
+#
+# A jlink image, as assembled by JReleaser, is run through its bin/jbang-launch
+# script, which takes JVM options from JAVA_OPTS and adds the JVM options
+# configured in jreleaser.yml.
+#
+set -euo pipefail
+
+source "$(dirname "${BASH_SOURCE[0]}")/lib.sh"
+
+RUNS=200
+WARMUP=20
+PROFILE=default
+OUTPUT=
+IMAGE=
+while getopts "n:w:p:o:i:" opt; do
+  case $opt in
+    n) RUNS=$OPTARG ;;
+    w) WARMUP=$OPTARG ;;
+    p) PROFILE=$OPTARG ;;
+    o) OUTPUT=$OPTARG ;;
+    i) IMAGE=$OPTARG ;;
+    *) sed -n '7,8p' "$0" 1>&2; exit 1 ;;
+  esac
+done
+shift $((OPTIND - 1))
+
+JAVA=${JAVA:-java}
+if [[ -n "$IMAGE" ]]; then
+  JAVA="$IMAGE/bin/java"
+  LAUNCHER="$IMAGE/bin/jbang-launch"
+  ARTIFACT=$IMAGE
+  if [[ ! -x "$LAUNCHER" ]]; then
+    echo "$LAUNCHER not found, pass the directory of a jlink image assembled by JReleaser" 1>&2
+    exit 1
+  fi
+else
+  JAR=$(find_jar "${1:-}")
+  ARTIFACT=$JAR
+  if [[ -z "$JAR" || ! -f "$JAR" ]]; then
+    echo "Launcher jar not found, run ./mvnw package first or pass its path" 1>&2
+    exit 1
+  fi
+fi
+
+case $PROFILE in
+  default) OPTS=() ;;
+  low-footprint) read -r -a OPTS <<< "$LOW_FOOTPRINT_OPTIONS" ;;
+  *) echo "Unknown profile: $PROFILE" 1>&2; exit 1 ;;
+esac
+
+# Options from the environment would make results incomparable
+unset JAVA_TOOL_OPTIONS JDK_JAVA_OPTIONS _JAVA_OPTIONS JAVA_OPTS
+
+STUBS=$(make_stubs)
+SAMPLES=$(mktemp -d)
+XVFB_PID=
+cleanup() {
+  rm -rf "$STUBS" "$SAMPLES"
+  if [[ -n "$XVFB_PID" ]]; then kill "$XVFB_PID" 2>/dev/null || true; fi
+}
+trap cleanup EXIT
+export PATH="$STUBS:$PATH"
+
+# One X server for the whole suite, starting one per run would dominate the timings
+if [[ -z "${DISPLAY:-}" && -z "${WAYLAND_DISPLAY:-}" ]] && command -v Xvfb >/dev/null; then
+  for n in $(seq 90 99); do
+    if [[ ! -e /tmp/.X11-unix/X$n ]]; then
+      Xvfb ":$n" -nolisten tcp >/dev/null 2>&1 &
+      XVFB_PID=$!
+      export DISPLAY=":$n"
+      sleep 1
+      break
+    fi
+  done
+fi
+
+read -r -a BENCH <<< "$BENCH_OPTIONS"
+JVM_OPTS=(${OPTS[@]+"${OPTS[@]}"} "${BENCH[@]}")
+PATHS=(to-url from-url headless native-dialog swing-dialog)
+
+# Runs the launcher with the JVM options given before "--" and the arguments after it
+launch() {
+  local jvm=()
+  while [[ $1 != -- ]]; do jvm+=("$1"); shift; done
+  shift
+  if [[ -n "$IMAGE" ]]; then
+    JAVA_OPTS="${JVM_OPTS[*]} ${jvm[*]:-}" "$LAUNCHER" "$@"
+  else
+    "$JAVA" "${JVM_OPTS[@]}" ${jvm[@]+"${jvm[@]}"} -jar "$JAR" "$@"
+  fi
+}
+
+run_path() {
+  case $1 in
+    to-url)
+      launch -- --to-url jbang run hello.java ;;
+    from-url)
+      launch -- --from-url jbang:///run/hello.java ;;
+    headless)
+      launch -Djava.awt.headless=true -- jbang:///run/hello.java ;;
+    native-dialog)
+      DISPLAY="${DISPLAY:-:0}" launch -Djava.awt.headless=false -Djbang.launch.confirm=zenity \
+        -- jbang:///run/hello.java ;;
+    swing-dialog)
+      launch -Djava.awt.headless=false -Djbang.launch.confirm=swing -Djbang.launch.dialog.timeout=0.001 \
+        -- jbang:///run/hello.java ;;
+  esac
+}
+
+# Runs a path once and appends its wall time in microseconds, or counts a
+# failure. Exits if the link was dropped by the flood limits.
+sample() {
+  local start end
+  start=$(date +%s%N)
+  if run_path "$1" >/dev/null 2>"$SAMPLES/stderr"; then
+    end=$(date +%s%N)
+    echo $(((end - start) / 1000)) >> "$SAMPLES/$1"
+  else
+    echo x >> "$SAMPLES/$1.failed"
+  fi
+  check_not_dropped "$SAMPLES/stderr"
+}
+
+ENABLED=()
+for path in "${PATHS[@]}"; do
+  if [[ $path == swing-dialog && -z "${DISPLAY:-}" ]]; then
+    echo "Skipping swing-dialog, no display and no Xvfb" 1>&2
+    continue
+  fi
+  ENABLED+=("$path")
+  : > "$SAMPLES/$path"
+  for _ in $(seq "$WARMUP"); do
+    run_path "$path" >/dev/null 2>"$SAMPLES/stderr" || true
+    check_not_dropped "$SAMPLES/stderr"
+  done
+done
+
+for i in $(seq "$RUNS"); do
+  for path in "${ENABLED[@]}"; do sample "$path"; done
+  if (( i % 50 == 0 )); then echo "... $i/$RUNS" 1>&2; fi
+done
+
+# Prints the statistics of microsecond samples read from stdin as a JSON object.
+# Percentiles use the nearest-rank method, the confidence interval is the 95%
+# normal approximation of the mean.
+stats() {
+  sort -n | awk -v path="$1" -v failed="$2" '
+    { v[NR] = $1 / 1000; sum += v[NR] }
+    END {
+      n = NR
+      if (n == 0) { printf "{\"path\":\"%s\",\"n\":0,\"failed\":%d}", path, failed; exit }
+      mean = sum / n
+      for (i = 1; i <= n; i++) ss += (v[i] - mean) ^ 2
+      sd = n > 1 ? sqrt(ss / (n - 1)) : 0
+      half = 1.96 * sd / sqrt(n)
+      p50 = v[int(0.50 * n + 0.999999)]; p99 = v[int(0.99 * n + 0.999999)]
+      printf "{\"path\":\"%s\",\"n\":%d,\"failed\":%d,\"mean_ms\":%.3f,\"stddev_ms\":%.3f,", path, n, failed, mean, sd
+      printf "\"ci95_low_ms\":%.3f,\"ci95_high_ms\":%.3f,", mean - half, mean + half
+      printf "\"min_ms\":%.3f,\"p50_ms\":%.3f,\"p99_ms\":%.3f,\"max_ms\":%.3f}", v[1], p50, p99, v[n]
+    }'
+}
+
+json_string() {
+  printf '"%s"' "$(printf '%s' "$1" | sed 's/\\/\\\\/g; s/"/\\"/g')"
+}
+
+COMMIT=$(git -C "$(dirname "${BASH_SOURCE[0]}")" rev-parse --short HEAD 2>/dev/null || echo unknown)
+JAVA_VERSION=$("$JAVA" -version 2>&1 | head -1)
+
+RESULTS=()
+for path in "${ENABLED[@]}"; do
+  failed=0
+  if [[ -f "$SAMPLES/$path.failed" ]]; then failed=$(wc -l < "$SAMPLES/$path.failed"); fi
+  RESULTS+=("$(stats "$path" "$failed" < "$SAMPLES/$path")")
+done
+
+{
+  printf '{"commit":%s,"date":%s,"java":%s,"artifact":%s,"profile":%s,"runs":%d,"warmup":%d,"results":[' \
+    "$(json_string "$COMMIT")" "$(json_string "$(date -u +%Y-%m-%dT%H:%M:%SZ)")" "$(json_string "$JAVA_VERSION")" \
+    "$(json_string "$ARTIFACT")" "$(json_string "$PROFILE")" "$RUNS" "$WARMUP"
+  (IFS=,; printf '%s' "${RESULTS[*]}")
+  printf ']}\n'
+} > "${OUTPUT:-/dev/stdout}"
+
+printf "%-14s %5s %6s %9s %9s %9s %19s\n" path n failed mean p50 p99 "ci95" 1>&2
+for result in "${RESULTS[@]}"; do
+  awk -v r="$result" 'BEGIN {
+    n = split(r, kv, /[{},]/)
+    for (i = 1; i <= n; i++) if (split(kv[i], p, ":") == 2) { gsub(/"/, "", p[1]); gsub(/"/, "", p[2]); f[p[1]] = p[2] }
+    if (f["n"] == 0) { printf "%-14s %5d %6d %9s\n", f["path"], 0, f["failed"], "-"; exit }
+    printf "%-14s %5d %6d %9.1f %9.1f %9.1f %9.1f-%-9.1f\n", f["path"], f["n"], f["failed"],
+      f["mean_ms"], f["p50_ms"], f["p99_ms"], f["ci95_low_ms"], f["ci95_high_ms"]
+  }' 1>&2
+done
@@ -0,0 +1,278 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail of every jbang:// URI received and what was decided about it,
+ * written as JSON lines.
+ * <p>
+ * Callers only format a record and put it on a bounded lock-free queue; a
+ * background thread appends records in batches and syncs the file once per
+ * batch (group commit), rotating it when it grows too large. When the queue
+ * is full new records are dropped and counted, and the count is written to
+ * the log as a {@code dropped} record. Pending records are flushed from a
+ * shutdown hook, so every {@code System.exit} path is covered.
+ * <p>
+ * Enabled by setting the {@code jbang.launch.audit.file} system property.
+ */
+public class AuditLog {
+
+    public static final String FILE_PROPERTY = "jbang.launch.audit.file";
+    public static final String MAX_BYTES_PROPERTY = "jbang.launch.audit.maxBytes";
+
+    static final int QUEUE_CAPACITY = 1024;
+    static final long DEFAULT_MAX_BYTES = 10L * 1024 * 1024;
+    static final int ROTATED_FILES = 5;
+
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+
+    private static volatile AuditLog instance;
+
+    private final Path file;
+    private final int capacity;
+    private final long maxBytes;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private FileChannel channel;
+
+    AuditLog(Path file, int capacity, long maxBytes) {
+        this.file = file;
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.writer = new Thread(this::writeLoop, "jbang-launch-audit");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Starts the audit log if {@value #FILE_PROPERTY} is set.
+     */
+    public static synchronized void startIfEnabled() throws IOException {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (instance != null || path == null || path.isBlank()) {
+            return;
+        }
+        long maxBytes = Long.getLong(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+        AuditLog log = new AuditLog(Path.of(path), QUEUE_CAPACITY, maxBytes);
+        log.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "jbang-launch-audit-flush"));
+        instance = log;
+    }
+
+    /**
+     * Records an event, if auditing is enabled. Never blocks on I/O.
+     *
+     * @param event what happened, e.g. "received" or "declined"
+     * @param uri the URI received, may be null
+     * @param argv the decoded command, may be null
+     * @param detail additional information such as a rejection reason, may be null
+     */
+    public static void record(String event, String uri, List<String> argv, String detail) {
+        AuditLog log = instance;
+        if (log != null) {
+            log.offer(format(Instant.now(), event, uri, argv, detail));
+        }
+    }
+
+    void start() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = open();
+        writer.start();
+    }
+
+    /**
+     * Queues a formatted record, dropping it if the queue is full.
+     *
+     * @return false if the record was dropped
+     */
+    boolean offer(String line) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.offer(line);
+        LockSupport.unpark(writer);
+        return true;
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting records and waits for the writer to flush what is queued.
+     */
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        long reportedDropped = 0;
+        try {
+            while (true) {
+                String line;
+                while (batch.size() < BATCH_SIZE && (line = queue.poll()) != null) {
+                    queued.decrementAndGet();
+                    batch.add(line);
+                }
+                long droppedNow = dropped.get();
+                if (droppedNow > reportedDropped) {
+                    batch.add(format(Instant.now(), "dropped", null, null, String.valueOf(droppedNow - reportedDropped)));
+                    reportedDropped = droppedNow;
+                }
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                } else if (closed) {
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+                } else {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException e) {
+            err.println("WARN: Audit log disabled, failed to write " + file + ": " + e.getMessage());
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void write(List<String> batch) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String line : batch) {
+            sb.append(line).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        // One sync for the whole batch
+        channel.force(false);
+        if (channel.size() >= maxBytes) {
+            rotate();
+        }
+    }
+
+    /**
+     * Rotates the file while holding its lock file, as every launcher JVM
+     * appends to it. A JVM that finds the file already rotated by another one
+     * only reopens it.
+     */
+    private void rotate() throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(file.resolveSibling(file.getFileName() + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Released when the channel is closed
+            lockChannel.lock();
+            channel.close();
+            if (Files.exists(file) && Files.size(file) >= maxBytes) {
+                for (int i = ROTATED_FILES - 1; i >= 1; i--) {
+                    Path from = rotated(i);
+                    if (Files.exists(from)) {
+                        Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            channel = open();
+        }
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static String format(Instant time, String event, String uri, List<String> argv, String detail) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"ts\":\"").append(time).append("\",\"event\":");
+        quote(sb, event);
+        if (uri != null) {
+            sb.append(",\"uri\":");
+            quote(sb, uri);
+        }
+        if (argv != null) {
+            sb.append(",\"argv\":[");
+            for (int i = 0; i < argv.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                quote(sb, argv.get(i));
+            }
+            sb.append(']');
+        }
+        if (detail != null) {
+            sb.append(",\"detail\":");
+            quote(sb, detail);
+        }
+        return sb.append('}').toString();
+    }
+
+    private static void quote(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
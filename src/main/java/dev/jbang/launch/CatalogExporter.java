@@ -0,0 +1,192 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates jbang:// links for every alias, template and nested catalog of a
+ * {@code jbang-catalog.json}.
+ * <p>
+ * The catalog is read with {@link JsonStreamReader} and every entry is written
+ * as soon as it has been parsed, so memory use does not grow with the size of
+ * the catalog.
+ */
+public class CatalogExporter {
+
+    public enum Format {
+        LIST, MARKDOWN, HTML;
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown format: " + value + " (expected list, markdown or html)");
+            }
+        }
+    }
+
+    /** The kind of catalog entry, named after the section of the catalog it is listed in. */
+    enum Kind {
+        ALIAS("alias"), TEMPLATE("template"), CATALOG("catalog");
+
+        final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+    }
+
+    private final PrintStream out;
+    private final Format format;
+    private final String catalogName;
+    private long count;
+
+    /**
+     * @param out where the links are written to
+     * @param format the output format
+     * @param catalogName if not null, aliases and templates are referenced as {@code name@catalogName}
+     */
+    public CatalogExporter(PrintStream out, Format format, String catalogName) {
+        this.out = out;
+        this.format = format;
+        this.catalogName = catalogName;
+    }
+
+    /**
+     * Reads a catalog and writes a link for each of its entries.
+     *
+     * @return the number of links written
+     * @throws IOException if the catalog cannot be read or is not valid JSON
+     */
+    public long export(Reader catalog) throws IOException {
+        count = 0;
+        header();
+        try (JsonStreamReader json = new JsonStreamReader(catalog)) {
+            json.beginObject();
+            while (json.hasNext()) {
+                String section = json.nextName();
+                switch (section) {
+                    case "aliases":
+                        readEntries(json, Kind.ALIAS);
+                        break;
+                    case "templates":
+                        readEntries(json, Kind.TEMPLATE);
+                        break;
+                    case "catalogs":
+                        readEntries(json, Kind.CATALOG);
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            }
+            json.endObject();
+        }
+        footer();
+        out.flush();
+        return count;
+    }
+
+    private void readEntries(JsonStreamReader json, Kind kind) throws IOException {
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            String description = null;
+            String catalogRef = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                String property = json.nextName();
+                if (json.peek() != JsonStreamReader.Token.STRING) {
+                    json.skipValue();
+                } else if (property.equals("description")) {
+                    description = json.nextString();
+                } else if (property.equals("catalog-ref")) {
+                    catalogRef = json.nextString();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            entry(kind, name, description, command(kind, name, catalogRef));
+        }
+        json.endObject();
+    }
+
+    /**
+     * Builds the command line for an entry. Templates are instantiated into a
+     * file named after the template, nested catalogs have their aliases listed.
+     */
+    List<String> command(Kind kind, String name, String catalogRef) {
+        String ref = catalogName == null ? name : name + "@" + catalogName;
+        List<String> command = new ArrayList<>();
+        command.add("jbang");
+        switch (kind) {
+            case ALIAS:
+                command.add("run");
+                command.add(ref);
+                break;
+            case TEMPLATE:
+                command.add("init");
+                command.add("--template=" + ref);
+                command.add(name + ".java");
+                break;
+            case CATALOG:
+                command.add("alias");
+                command.add("list");
+                command.add(catalogRef != null ? catalogRef : name);
+                break;
+        }
+        return command;
+    }
+
+    private void header() {
+        switch (format) {
+            case MARKDOWN:
+                out.println("| Type | Name | Description | Link |");
+                out.println("|------|------|-------------|------|");
+                break;
+            case HTML:
+                out.println("<table>");
+                out.println("<tr><th>Type</th><th>Name</th><th>Description</th><th>Link</th></tr>");
+                break;
+            default:
+        }
+    }
+
+    private void entry(Kind kind, String name, String description, List<String> command) {
+        String url = UrlConverter.commandToUrl(command.toArray(new String[0])).toASCIIString();
+        String text = description == null ? "" : description;
+        switch (format) {
+            case LIST:
+                out.println(url);
+                break;
+            case MARKDOWN:
+                out.println("| " + kind.label + " | " + markdown(name) + " | " + markdown(text)
+                        + " | [" + markdown(String.join(" ", command)) + "](" + url + ") |");
+                break;
+            case HTML:
+                out.println("<tr><td>" + kind.label + "</td><td>" + html(name) + "</td><td>" + html(text)
+                        + "</td><td><a href=\"" + html(url) + "\">" + html(String.join(" ", command)) + "</a></td></tr>");
+                break;
+        }
+        count++;
+    }
+
+    private void footer() {
+        if (format == Format.HTML) {
+            out.println("</table>");
+        }
+    }
+
+    private static String markdown(String s) {
+        return s.replace("\\", "\\\\").replace("|", "\\|").replace("[", "\\[").replace("]", "\\]")
+                .replace("\r", " ").replace("\n", " ");
+    }
+
+    private static String html(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -18,15 +18,53 @@ public class CommandSecurityValidator {
         "(\\$\\{[^}]*\\}|\\$\\([^)]*\\)|`[^`]*`|\\$\\(\\$[^)]*\\))" // Command substitution
     );
     
+    /**
+     * The validation rules, used to tell rejections apart (e.g. in metrics).
+     */
+    public enum Rule {
+        EMPTY_COMMAND("empty_command"),
+        NULL_ARGUMENT("null_argument"),
+        SHELL_METACHARACTERS("shell_metacharacters"),
+        COMMAND_INJECTION("command_injection");
+
+        private final String id;
+
+        Rule(String id) {
+            this.id = id;
+        }
+
+        public String id() {
+            return id;
+        }
+    }
+
+    /**
+     * Thrown when a command is rejected, carrying the rule that rejected it.
+     */
+    public static class ValidationException extends SecurityException {
+        private static final long serialVersionUID = 1L;
+
+        private final Rule rule;
+
+        public ValidationException(Rule rule, String message) {
+            super(message);
+            this.rule = rule;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+    }
+
     /**
      * Validates command arguments for security risks.
      * 
      * @param commandArgs the command arguments to validate
-     * @throws SecurityException if any dangerous patterns are detected
+     * @throws ValidationException if any dangerous patterns are detected
      */
     public static void validateCommand(List<String> commandArgs) {
         if (commandArgs == null || commandArgs.isEmpty()) {
-            throw new SecurityException("Command arguments cannot be null or empty");
+            throw new ValidationException(Rule.EMPTY_COMMAND, "Command arguments cannot be null or empty");
         }
         
         for (String arg : commandArgs) {
@@ -38,21 +76,21 @@ public class CommandSecurityValidator {
      * Validates a single argument for security risks.
      * 
      * @param arg the argument to validate
-     * @throws SecurityException if dangerous patterns are detected
+     * @throws ValidationException if dangerous patterns are detected
      */
     public static void validateArgument(String arg) {
         if (arg == null) {
-            throw new SecurityException("Argument cannot be null");
+            throw new ValidationException(Rule.NULL_ARGUMENT, "Argument cannot be null");
         }
         
         // Check for dangerous shell characters
         if (DANGEROUS_PATTERN.matcher(arg).find()) {
-            throw new SecurityException("Dangerous shell characters detected in argument: " + arg);
+            throw new ValidationException(Rule.SHELL_METACHARACTERS, "Dangerous shell characters detected in argument: " + arg);
         }
         
         // Check for command injection patterns
         if (INJECTION_PATTERN.matcher(arg).find()) {
-            throw new SecurityException("Potential command injection detected in argument: " + arg);
+            throw new ValidationException(Rule.COMMAND_INJECTION, "Potential command injection detected in argument: " + arg);
         }
         
     }
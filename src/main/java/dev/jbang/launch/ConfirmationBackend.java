@@ -0,0 +1,99 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Asks the user to confirm a command and shows errors.
+ * <p>
+ * On Linux {@code zenity} or {@code kdialog} are preferred when installed, so
+ * the JVM never has to load {@code java.desktop}; everywhere else, or when
+ * neither is available, the Swing dialog is used. The choice can be forced
+ * with the {@code jbang.launch.confirm} system property
+ * ({@code auto}, {@code swing}, {@code zenity} or {@code kdialog}).
+ * <p>
+ * Dialogs nobody answers are closed after {@code jbang.launch.dialog.timeout}
+ * seconds, if set, so the JVM waiting on them can exit.
+ */
+public interface ConfirmationBackend {
+
+    String BACKEND_PROPERTY = "jbang.launch.confirm";
+    String TIMEOUT_PROPERTY = "jbang.launch.dialog.timeout";
+
+    /**
+     * Asks a yes/no question, blocking until it is answered or the timeout
+     * has passed.
+     *
+     * @param timeout how long to wait for an answer, null to wait forever
+     * @return true if the user approved
+     * @throws DialogTimeoutException if the question was not answered in time
+     * @throws IOException if the dialog could not be shown
+     */
+    boolean confirm(String title, String message, Duration timeout) throws IOException;
+
+    /**
+     * Shows an error message, blocking until it is dismissed or the timeout
+     * has passed.
+     *
+     * @param timeout how long to show the message, null to wait forever
+     * @throws DialogTimeoutException if the message was not dismissed in time
+     */
+    void showError(String title, String message, Duration timeout) throws IOException;
+
+    /**
+     * @return the configured dialog timeout, or null if dialogs wait forever
+     */
+    static Duration dialogTimeout() {
+        return Durations.fromProperty(TIMEOUT_PROPERTY, ChronoUnit.SECONDS, null);
+    }
+
+    /**
+     * Selects the backend for this platform and the current configuration.
+     */
+    static ConfirmationBackend select() {
+        return select(System.getProperty(BACKEND_PROPERTY, "auto"), System.getProperty("os.name"),
+                System.getenv("XDG_CURRENT_DESKTOP"), System.getenv("PATH"));
+    }
+
+    static ConfirmationBackend select(String requested, String osName, String desktop, String path) {
+        switch (requested.toLowerCase(Locale.ROOT)) {
+            case "swing":
+                return new SwingConfirmation();
+            case "zenity":
+            case "kdialog":
+                Path tool = Executables.find(requested.toLowerCase(Locale.ROOT), path);
+                if (tool != null) {
+                    return new NativeDialogConfirmation(tool);
+                }
+                System.err.println("WARN: " + requested + " not found, falling back to Swing dialog");
+                return new SwingConfirmation();
+            default:
+        }
+
+        String os = osName == null ? "" : osName.toLowerCase(Locale.ROOT);
+        if (os.contains("nux") || os.contains("nix")) {
+            boolean kde = desktop != null && desktop.toUpperCase(Locale.ROOT).contains("KDE");
+            for (String name : kde ? new String[] {"kdialog", "zenity"} : new String[] {"zenity", "kdialog"}) {
+                Path tool = Executables.find(name, path);
+                if (tool != null) {
+                    return new NativeDialogConfirmation(tool);
+                }
+            }
+        }
+        return new SwingConfirmation();
+    }
+
+    /**
+     * Thrown when a dialog was closed because nobody answered it in time.
+     */
+    class DialogTimeoutException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public DialogTimeoutException(Duration timeout) {
+            super("Dialog not answered within " + Durations.format(timeout));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dev.jbang.launch;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs jbang in the terminal by starting {@code jbang.jar} directly, instead
+ * of going through the {@code jbang} wrapper script.
+ * <p>
+ * The wrapper is a bash script started on every run, which then locates its
+ * jar and a JDK with several more forks. Here the same lookups, in the
+ * wrapper's order, are done by the terminal's own shell as plain tests, right
+ * before jbang is started. They see the environment of that shell, which on
+ * macOS is the user's login shell rather than the minimal one the launcher
+ * gets from launchd, and they run in a subshell, so JAVA_HOME is only changed
+ * for jbang. The wrapper's protocol is kept: when jbang exits with 255, its
+ * output is the command line to execute.
+ * <p>
+ * Whenever something would need the wrapper, such as downloading jbang or a
+ * JDK or swapping in an updated jar, the wrapper is run instead.
+ * <p>
+ * Enabled by setting the {@code jbang.launch.direct} system property to
+ * {@code true}.
+ */
+public class DirectLaunch {
+
+    public static final String DIRECT_PROPERTY = "jbang.launch.direct";
+
+    /** The JDK version the wrapper installs when none is available. */
+    static final String DEFAULT_JAVA_VERSION = "17";
+    /** The wrapper installs this version on Alpine Linux, whatever is configured. */
+    static final String ALPINE_JAVA_VERSION = "16";
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(DIRECT_PROPERTY);
+    }
+
+    /**
+     * Builds the shell command that runs jbang directly.
+     *
+     * @param commandArgs the validated command, starting with {@code jbang}
+     * @return the command, or null to use the wrapper
+     */
+    public static String shellCommand(List<String> commandArgs) {
+        if (commandArgs.isEmpty() || !commandArgs.get(0).equals("jbang")) {
+            return null;
+        }
+        return shellCommand(commandArgs.subList(1, commandArgs.size()),
+                System.getProperty("os.name").toLowerCase().contains("mac"));
+    }
+
+    /**
+     * Mirrors the wrapper script, minus its downloads and updates, which are
+     * left to the wrapper itself.
+     *
+     * @param mac whether {@code javac} on the PATH needs confirming with
+     *            {@code /usr/libexec/java_home}, as macOS ships a stub
+     */
+    static String shellCommand(List<String> jbangArgs, boolean mac) {
+        String args = jbangArgs.stream().map(DirectLaunch::quote).collect(Collectors.joining(" "));
+        String argsSuffix = args.isEmpty() ? "" : " " + args;
+        return "("
+                // The jar next to the wrapper on the PATH, else the one installed in JBANG_DIR
+                + "__jbang_dir=${JBANG_DIR:-$HOME/.jbang}; __jbang_jar=; __jbang_cmd=$(command -v jbang); "
+                + "if [ -n \"$__jbang_cmd\" ]; then __jbang_bin=$__jbang_cmd; "
+                + "if [ -L \"$__jbang_cmd\" ]; then __jbang_bin=$(readlink -f \"$__jbang_cmd\" 2>/dev/null); fi; "
+                + "__jbang_bin=${__jbang_bin%/*}; "
+                + "if [ -f \"$__jbang_bin/jbang.jar\" ]; then __jbang_jar=$__jbang_bin/jbang.jar; "
+                + "elif [ -f \"$__jbang_bin/.jbang/jbang.jar\" ]; then __jbang_jar=$__jbang_bin/.jbang/jbang.jar; fi; "
+                + "fi; "
+                + "if [ -z \"$__jbang_jar\" ] && [ -f \"$__jbang_dir/bin/jbang.jar\" ] && [ -f \"$__jbang_dir/bin/jbang\" ]; "
+                + "then __jbang_cmd=$__jbang_dir/bin/jbang; __jbang_jar=$__jbang_dir/bin/jbang.jar; fi; "
+                // A JDK from JAVA_HOME, the PATH, jbang's current JDK or the one jbang installed,
+                // unless the wrapper has to swap in an update first
+                + "__jbang_java=; "
+                + "if [ -n \"$__jbang_jar\" ] && [ ! -e \"$__jbang_jar.new\" ]; then "
+                + "if [ -n \"${JAVA_HOME:-}\" ] && [ -x \"$JAVA_HOME/bin/javac\" ]; then __jbang_java=$JAVA_HOME/bin/java; "
+                + "elif command -v javac >/dev/null 2>&1"
+                + (mac ? " && /usr/libexec/java_home >/dev/null 2>&1" : "")
+                + "; then unset JAVA_HOME; __jbang_java=java; "
+                + "elif [ -x \"$__jbang_dir/currentjdk/bin/javac\" ]; then "
+                + "export JAVA_HOME=$__jbang_dir/currentjdk; __jbang_java=$JAVA_HOME/bin/java; "
+                + "else __jbang_version=${JBANG_DEFAULT_JAVA_VERSION:-" + DEFAULT_JAVA_VERSION + "}; "
+                + "if [ -f /etc/alpine-release ]; then __jbang_version=" + ALPINE_JAVA_VERSION + "; fi; "
+                + "__jbang_jdk=${JBANG_CACHE_DIR:-$__jbang_dir/cache}/jdks/$__jbang_version; "
+                + "if [ -x \"$__jbang_jdk/bin/java\" ]; then export JAVA_HOME=$__jbang_jdk; __jbang_java=$JAVA_HOME/bin/java; fi; "
+                + "fi; "
+                + "fi; "
+                // The wrapper downloads or updates what is missing
+                + "if [ -z \"$__jbang_java\" ]; then exec \"${__jbang_cmd:-jbang}\"" + argsSuffix + "; fi; "
+                + "export JBANG_RUNTIME_SHELL=bash JBANG_LAUNCH_CMD=\"$__jbang_cmd\"; "
+                + "if [ -t 0 ]; then export JBANG_STDIN_NOTTY=false; else export JBANG_STDIN_NOTTY=true; fi; "
+                // Lets the launch probe time jbang apart from the lookups before it
+                + "if [ -n \"${" + LaunchProbe.MARK_VARIABLE + ":-}\" ]; then \"$" + LaunchProbe.MARK_VARIABLE
+                + "\" " + LaunchProbe.JBANG_STARTED + "; fi; "
+                + "__out=$(CLICOLOR_FORCE=1 \"$__jbang_java\" ${JBANG_JAVA_OPTIONS} -classpath \"$__jbang_jar\" dev.jbang.Main"
+                + argsSuffix + "); __err=$?; "
+                + "if [ $__err -eq 255 ]; then eval \"exec $__out\"; "
+                + "else if [ -n \"$__out\" ]; then echo \"$__out\"; fi; exit $__err; fi)";
+    }
+
+    private static String quote(String s) {
+        return "'" + s.replace("'", "'\"'\"'") + "'";
+    }
+}
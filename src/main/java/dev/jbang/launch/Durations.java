@@ -0,0 +1,52 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Reads durations configured through system properties.
+ */
+class Durations {
+
+    private Durations() {
+    }
+
+    /**
+     * Reads a duration given as a decimal number of units, e.g. {@code 1.5}.
+     *
+     * @param property the system property to read
+     * @param unit the unit the value is given in
+     * @param defaultValue returned when the property is not set or invalid
+     * @return the duration, or null when it is zero or negative, meaning "never"
+     */
+    static Duration fromProperty(String property, ChronoUnit unit, Duration defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        Duration duration;
+        try {
+            duration = parse(value, unit);
+        } catch (NumberFormatException | ArithmeticException e) {
+            err.println("WARN: Ignoring invalid value for " + property + ": " + value);
+            return defaultValue;
+        }
+        return duration.isZero() || duration.isNegative() ? null : duration;
+    }
+
+    static Duration parse(String value, ChronoUnit unit) {
+        BigDecimal nanos = new BigDecimal(value.trim()).multiply(BigDecimal.valueOf(unit.getDuration().toNanos()));
+        return Duration.ofNanos(nanos.setScale(0, RoundingMode.HALF_UP).longValueExact());
+    }
+
+    /**
+     * Formats a duration like {@code 90s} or {@code 1.5s}.
+     */
+    static String format(Duration duration) {
+        return BigDecimal.valueOf(duration.toMillis(), 3).stripTrailingZeros().toPlainString() + "s";
+    }
+}
@@ -0,0 +1,46 @@
+package dev.jbang.launch;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Looks up executables on the PATH without spawning {@code which}.
+ */
+class Executables {
+
+    private Executables() {
+    }
+
+    /**
+     * Finds an executable on the PATH of this process.
+     *
+     * @return the executable, or null if it is not on the PATH
+     */
+    static Path find(String name) {
+        return find(name, System.getenv("PATH"));
+    }
+
+    /**
+     * Finds an executable on the given search path.
+     *
+     * @param name the executable name
+     * @param path the search path, entries separated by {@link File#pathSeparator}
+     * @return the executable, or null if it is not found
+     */
+    static Path find(String name, String path) {
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Path.of(dir, name);
+            if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Keeps a resident URI handler alive while it is in use, releasing memory when
+ * it has been idle for a while and shutting it down when it has been idle for
+ * too long.
+ * <p>
+ * After {@code jbang.launch.idle.trim} seconds without a URI (60 by default)
+ * a full GC is requested once, which also lets the heap be uncommitted. After
+ * {@code jbang.launch.idle.timeout} minutes without a URI, if set, the handler
+ * exits. URIs that are still being handled never count as idle time.
+ */
+public class IdleMonitor {
+
+    public static final String TIMEOUT_PROPERTY = "jbang.launch.idle.timeout";
+    public static final String TRIM_PROPERTY = "jbang.launch.idle.trim";
+
+    static final Duration DEFAULT_TRIM_AFTER = Duration.ofSeconds(60);
+
+    private static final Object lock = new Object();
+    private static long lastActivity = System.nanoTime();
+    private static int active;
+
+    /**
+     * Marks the start of handling a URI.
+     */
+    public static void uriStarted() {
+        synchronized (lock) {
+            active++;
+            lastActivity = System.nanoTime();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Marks the end of handling a URI.
+     */
+    public static void uriFinished() {
+        synchronized (lock) {
+            active--;
+            lastActivity = System.nanoTime();
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the handler has been idle for the configured timeout,
+     * trimming the heap along the way. Blocks forever when no timeout is set.
+     */
+    public static void awaitIdleTimeout() throws InterruptedException {
+        awaitIdleTimeout(Durations.fromProperty(TIMEOUT_PROPERTY, ChronoUnit.MINUTES, null),
+                Durations.fromProperty(TRIM_PROPERTY, ChronoUnit.SECONDS, DEFAULT_TRIM_AFTER));
+    }
+
+    static void awaitIdleTimeout(Duration timeout, Duration trimAfter) throws InterruptedException {
+        // The activity that was last trimmed for, so each idle period trims once
+        Long trimmedFor = null;
+        synchronized (lock) {
+            while (true) {
+                long now = System.nanoTime();
+                long idleNanos = active > 0 ? 0 : now - lastActivity;
+
+                if (trimAfter != null && active == 0 && !Long.valueOf(lastActivity).equals(trimmedFor)
+                        && idleNanos >= trimAfter.toNanos()) {
+                    trim(Duration.ofNanos(idleNanos));
+                    trimmedFor = lastActivity;
+                }
+                if (timeout != null && idleNanos >= timeout.toNanos()) {
+                    err.println("INFO: No jbang:// URI received for " + Durations.format(Duration.ofNanos(idleNanos))
+                            + ", shutting down idle handler");
+                    return;
+                }
+
+                // Sleep until the next deadline, or until a URI arrives
+                long waitNanos = Long.MAX_VALUE;
+                if (active == 0) {
+                    if (trimAfter != null && !Long.valueOf(lastActivity).equals(trimmedFor)) {
+                        waitNanos = Math.min(waitNanos, trimAfter.toNanos() - idleNanos);
+                    }
+                    if (timeout != null) {
+                        waitNanos = Math.min(waitNanos, timeout.toNanos() - idleNanos);
+                    }
+                }
+                if (waitNanos == Long.MAX_VALUE) {
+                    lock.wait();
+                } else {
+                    long millis = Math.max(1, (waitNanos + 999_999) / 1_000_000);
+                    lock.wait(millis);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a full GC so unused heap is returned to the operating system, as far
+     * as the collector and its {@code MaxHeapFreeRatio} allow.
+     */
+    static void trim(Duration idle) {
+        Runtime runtime = Runtime.getRuntime();
+        long before = runtime.totalMemory();
+        System.gc();
+        long after = runtime.totalMemory();
+        err.println(String.format("INFO: Idle for %s, trimmed heap from %.1f MB to %.1f MB committed (%.1f MB used)",
+                Durations.format(idle), before / 1048576.0, after / 1048576.0,
+                (after - runtime.freeMemory()) / 1048576.0));
+    }
+}
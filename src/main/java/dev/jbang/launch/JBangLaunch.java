@@ -6,34 +6,35 @@ import static dev.jbang.launch.UrlConverter.urlToCommand;
 import static dev.jbang.launch.UrlConverter.urlToCommandString;
 import static java.awt.Desktop.getDesktop;
 import static java.awt.Desktop.isDesktopSupported;
-import static java.awt.GraphicsEnvironment.isHeadless;
 import static java.lang.System.err;
 import static java.lang.System.exit;
 import static java.lang.System.out;
 
 import java.awt.Desktop;
-import java.awt.Frame;
-import java.awt.GraphicsDevice;
 import java.awt.GraphicsEnvironment;
-import java.awt.MouseInfo;
-import java.awt.Point;
-import java.awt.Rectangle;
-import java.awt.Window.Type;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
-import javax.swing.JDialog;
-import javax.swing.JOptionPane;
-import javax.swing.SwingUtilities;
-import javax.swing.UIManager;
-import javax.swing.UnsupportedLookAndFeelException;
+public class JBangLaunch {
 
-import com.formdev.flatlaf.FlatLightLaf;
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+
+    private static ConfirmationBackend confirmation;
+    private static LaunchThrottle throttle;
+    /** Slots held until the JVM exits, or the resident handler is done with a URI. */
+    private static LaunchThrottle.Slot dialogSlot;
+    private static LaunchThrottle.Slot terminalSlot;
 
-public class JBangLaunch {
     public static void main(String[] args) {
         if (args != null && args.length > 0) {
             // Check for conversion flags
@@ -60,11 +61,52 @@ public class JBangLaunch {
                 
                 out.println(urlToCommandString(url));
                 exit(0);
+            } else if (args[0].equals("--run-all")) {
+                if (args.length < 2) {
+                    err.println("Usage: jbang-launch --run-all <jbang://url> [<jbang://url> ...]");
+                    exit(1);
+                }
+
+                exit(runAll(Arrays.copyOfRange(args, 1, args.length)));
+            } else if (args[0].equals("--scan")) {
+                if (args.length < 2) {
+                    err.println("Usage: jbang-launch --scan <dir>");
+                    exit(1);
+                }
+
+                exit(scanLinks(Path.of(args[1])));
+            } else if (args[0].equals("--export-catalog")) {
+                if (args.length < 2) {
+                    err.println("Usage: jbang-launch --export-catalog <jbang-catalog.json> [--format=list|markdown|html] [--at=<catalog>]");
+                    err.println("       jbang-launch --export-catalog - (read catalog from stdin)");
+                    exit(1);
+                }
+
+                exit(exportCatalog(args));
             }
         }
 
-        // Original URL handler functionality
-        installURIListener();
+        try {
+            AuditLog.startIfEnabled();
+        } catch (IOException e) {
+            err.println("WARN: Failed to start audit log: " + e.getMessage());
+        }
+
+        try {
+            LaunchProbe.startIfEnabled();
+        } catch (IOException e) {
+            err.println("WARN: Failed to start launch probe: " + e.getMessage());
+        }
+
+        // Drop link floods before AWT or any terminal is touched
+        if (args != null && args.length > 0 && URI.create(args[0]).getScheme() != null && !admit(args[0])) {
+            exit(0);
+        }
+
+        // Original URL handler functionality, only needed on macOS
+        if (System.getProperty("os.name").toLowerCase().contains("mac")) {
+            installURIListener();
+        }
 
         if (args != null && args.length > 0) {
             String firstArg = args[0];
@@ -81,12 +123,21 @@ public class JBangLaunch {
         // If no URI was provided as argument, keep the application alive
         // for URI handler functionality (especially on macOS)
         try {
-            // Keep the main thread alive
-            Thread.currentThread().join();
+            MetricsServer metrics = MetricsServer.startIfEnabled();
+            if (metrics != null) {
+                err.println("INFO: Serving metrics on http://localhost:" + metrics.getPort() + "/metrics");
+            }
+        } catch (IOException e) {
+            err.println("WARN: Failed to start metrics endpoint: " + e.getMessage());
+        }
+
+        try {
+            // Keep the main thread alive until the handler has been idle for too long
+            IdleMonitor.awaitIdleTimeout();
         } catch (InterruptedException e) {
             // Exit gracefully if interrupted
-            exit(0);
         }
+        exit(0);
     }
 
     /**
@@ -98,153 +149,190 @@ public class JBangLaunch {
             Desktop dt = getDesktop();
             if (dt.isSupported(Desktop.Action.APP_OPEN_URI)) {
                 dt.setOpenURIHandler((event) -> {
-                    handleURI(event.getURI());
+                    IdleMonitor.uriStarted();
+                    try {
+                        if (admit(event.getURI().toString())) {
+                            handleURI(event.getURI());
+                        }
+                    } finally {
+                        releaseSlots();
+                        IdleMonitor.uriFinished();
+                    }
                 });
             }
         }
     }
 
     private static void handleURI(URI uri) {
+        LaunchMetrics.uriReceived();
+        LaunchProbe.markNow(LaunchProbe.URI_RECEIVED);
+        // Recorded before decoding, so URIs that cannot be decoded are audited too
+        AuditLog.record("received", uri.toString(), null, null);
+
         // Convert URI to command using UrlConverter
-        String[] commandArgs = urlToCommand(uri.toString()).toArray(new String[0]);
+        String[] commandArgs;
+        try {
+            commandArgs = urlToCommand(uri.toString()).toArray(new String[0]);
+        } catch (IllegalArgumentException e) {
+            AuditLog.record("rejected", uri.toString(), null, "invalid_url: " + e.getMessage());
+            if (isHeadless()) {
+                err.println("Invalid URL: " + e.getMessage());
+                exit(1);
+            } else {
+                showSecurityErrorDialog("Invalid URL", e.getMessage());
+            }
+            return;
+        }
         
         if (isHeadless()) {
             out.println("URL: " + uri);
             out.println("Command: " + String.join(" ", commandArgs));
             // Execute the command in headless mode
+            AuditLog.record("approved", null, Arrays.asList(commandArgs), "headless");
             executeJbangCommand(commandArgs);
         } else {
-            setupLookAndFeel();
-            
-            SwingUtilities.invokeLater(() -> {
-                try {
-                    Rectangle screenBounds = getActiveScreenBounds();
-                    
-                    // Create a simple confirmation dialog
-                    JOptionPane optionPane = new JOptionPane(
+            boolean approved;
+            try {
+                approved = confirmation().confirm("jbang:// URL Handler",
                         "Execute jbang command?\n\n" + String.join(" ", commandArgs),
-                        JOptionPane.QUESTION_MESSAGE,
-                        JOptionPane.YES_NO_OPTION
-                    );
-                    
-                    JDialog dialog = optionPane.createDialog("jbang:// URL Handler");
-                    
-                    // Position the dialog on the same screen as the mouse, but centered
-                    int dialogX = screenBounds.x + (screenBounds.width / 2) - 150;
-                    int dialogY = screenBounds.y + (screenBounds.height / 2) - 75;
-                    
-                    dialog.setLocation(dialogX, dialogY);
-                    
-                    // Show the dialog
-                    dialog.setVisible(true);
-                    
-                    // Get the result
-                    Object selectedValue = optionPane.getValue();
-                    int result = JOptionPane.CLOSED_OPTION;
-                    
-                    if (selectedValue != null) {
-                        if (selectedValue.equals(JOptionPane.YES_OPTION)) {
-                            result = JOptionPane.YES_OPTION;
-                        } else if (selectedValue.equals(JOptionPane.NO_OPTION)) {
-                            result = JOptionPane.NO_OPTION;
-                        }
-                    }
-                    
-                    if (result == JOptionPane.YES_OPTION) {
-                        // Execute the command
-                        executeJbangCommand(commandArgs);
-                    }
-                    
-                    
-                    // Exit after dialog is handled
-                    exit(0);
-                } catch (Exception e) {
-                    err.println("Error showing dialog: " + e.getMessage());
-                    e.printStackTrace();
-                    exit(1);
-                }
-            });
-            
+                        ConfirmationBackend.dialogTimeout());
+            } catch (ConfirmationBackend.DialogTimeoutException e) {
+                err.println("INFO: " + e.getMessage() + ", declining");
+                LaunchMetrics.dialogAnswered(false);
+                AuditLog.record("declined", null, Arrays.asList(commandArgs), "timeout");
+                exit(0);
+                return;
+            } catch (Exception e) {
+                err.println("Error showing dialog: " + e.getMessage());
+                e.printStackTrace();
+                exit(1);
+                return;
+            }
+
+            LaunchProbe.markNow(LaunchProbe.DIALOG_ANSWERED);
+            LaunchMetrics.dialogAnswered(approved);
+            AuditLog.record(approved ? "approved" : "declined", null, Arrays.asList(commandArgs), "dialog");
+
+            if (approved) {
+                // Execute the command
+                executeJbangCommand(commandArgs);
+            }
+
+            // Exit after dialog is handled
+            exit(0);
         }
     }
 
     /**
-     * Needed to position the dialog on the same screen as the mouse.
-     * Otherwise the dialog will be shown on the default screen which
-     * might not be the one the user is currently using.
-     * @return
+     * Applies the rate limit to a received URI and, unless headless, takes a
+     * slot for its confirmation dialog, then one for its terminal.
+     *
+     * @return false if the URI was dropped
      */
-    private static Rectangle getActiveScreenBounds() {
-        // Get the current mouse location
-        Point mouseLocation = MouseInfo.getPointerInfo().getLocation();
-        
-        // Find which screen contains the mouse cursor
-        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-        GraphicsDevice targetScreen = null;
-        
-        for (GraphicsDevice screen : ge.getScreenDevices()) {
-            Rectangle bounds = screen.getDefaultConfiguration().getBounds();
-            if (bounds.contains(mouseLocation)) {
-                targetScreen = screen;
-                break;
+    private static synchronized boolean admit(String uri) {
+        LaunchThrottle.Reason reason = null;
+        try {
+            if (!throttle().tryAcquireToken()) {
+                reason = LaunchThrottle.Reason.RATE;
+            } else if (!isHeadless()) {
+                dialogSlot = throttle().tryAcquireDialogSlot();
+                if (dialogSlot == null) {
+                    reason = LaunchThrottle.Reason.DIALOGS;
+                }
             }
+            // Tabbed launches share one terminal, so only separate windows are capped
+            if (reason == null && !TabCoalescer.isEnabled()) {
+                terminalSlot = throttle().tryAcquireTerminalSlot();
+                if (terminalSlot == null) {
+                    reason = LaunchThrottle.Reason.TERMINALS;
+                }
+            }
+        } catch (IOException e) {
+            err.println("WARN: Rate limiting unavailable: " + e.getMessage());
+            return true;
         }
-        
-        // If no screen found, use the default screen
-        if (targetScreen == null) {
-            targetScreen = ge.getDefaultScreenDevice();
+        if (reason == null) {
+            return true;
         }
-        
-        // Get the bounds of the target screen
-        Rectangle screenBounds = targetScreen.getDefaultConfiguration().getBounds();
-        return screenBounds;
+        releaseSlots();
+        dropped(uri, null, reason);
+        return false;
     }
 
-    private static void setupLookAndFeel() {
+    private static void dropped(String uri, List<String> argv, LaunchThrottle.Reason reason) {
+        LaunchMetrics.uriDropped(reason);
+        AuditLog.record("dropped", uri, argv, reason.id());
         try {
-            UIManager.setLookAndFeel(new FlatLightLaf());
-        } catch (UnsupportedLookAndFeelException e) {
-            err.println("WARN: Failed to set look and feel");
-            e.printStackTrace();
+            throttle().dropped(reason, !isHeadless());
+        } catch (IOException e) {
+            err.println("WARN: Failed to record dropped URI: " + e.getMessage());
         }
     }
-    
+
+    private static synchronized void releaseSlots() {
+        if (dialogSlot != null) {
+            dialogSlot.close();
+            dialogSlot = null;
+        }
+        if (terminalSlot != null) {
+            terminalSlot.close();
+            terminalSlot = null;
+        }
+    }
+
+    private static synchronized LaunchThrottle throttle() {
+        if (throttle == null) {
+            throttle = LaunchThrottle.create();
+        }
+        return throttle;
+    }
+
+    /**
+     * Returns the backend used for dialogs, selected on first use.
+     */
+    private static synchronized ConfirmationBackend confirmation() {
+        if (confirmation == null) {
+            confirmation = ConfirmationBackend.select();
+        }
+        return confirmation;
+    }
+
+    /**
+     * Like {@link GraphicsEnvironment#isHeadless()}, but decided from the
+     * environment on Linux so that AWT is not loaded when a native dialog
+     * backend is used.
+     */
+    private static boolean isHeadless() {
+        String headless = System.getProperty("java.awt.headless");
+        if (headless != null) {
+            return Boolean.parseBoolean(headless);
+        }
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("nux") || os.contains("nix")) {
+            return System.getenv("DISPLAY") == null && System.getenv("WAYLAND_DISPLAY") == null;
+        }
+        return GraphicsEnvironment.isHeadless();
+    }
+
     /**
      * Shows a security error dialog to the user.
      */
     private static void showSecurityErrorDialog(String title, String message) {
-        
-        
-try {
-
-                 Rectangle screenBounds = getActiveScreenBounds();
-                    
-                    JOptionPane optionPane = new JOptionPane(
-                        "Security Error\n\n" + message + "\n\nThis command was rejected for security reasons.",
-                        JOptionPane.ERROR_MESSAGE,
-                        JOptionPane.DEFAULT_OPTION
-                    );
-                    
-                    JDialog dialog = optionPane.createDialog(title);
-                    
-                    // Position the dialog on the same screen as the mouse, but centered
-                    int dialogX = screenBounds.x + (screenBounds.width / 2) - 200;
-                    int dialogY = screenBounds.y + (screenBounds.height / 2) - 100;
-                    
-                    dialog.setLocation(dialogX, dialogY);
-                    
-                    // Show the dialog
-                    dialog.setVisible(true);
-                    
-                    // Exit after dialog is handled
-                    exit(0);
-                } catch (Exception e) {
-                    err.println("Error showing security dialog: " + e.getMessage());
-                    e.printStackTrace();
-                    exit(1);
-                }
-            
-       
+        try {
+            confirmation().showError(title,
+                    "Security Error\n\n" + message + "\n\nThis command was rejected for security reasons.",
+                    ConfirmationBackend.dialogTimeout());
+
+            // Exit after dialog is handled
+            exit(0);
+        } catch (ConfirmationBackend.DialogTimeoutException e) {
+            err.println("INFO: " + e.getMessage() + ", closed error dialog");
+            exit(0);
+        } catch (Exception e) {
+            err.println("Error showing security dialog: " + e.getMessage());
+            e.printStackTrace();
+            exit(1);
+        }
     }
     
     /**
@@ -254,9 +342,23 @@ try {
        System.out.println("Executing jbang command: " + String.join(" ", args));
 
       try {
+        long start = System.nanoTime();
+        // Validates the command before anything is started
         TerminalLauncher.launchInTerminal(Arrays.asList(args));
+        terminalStarted();
+        AuditLog.record("validated", null, Arrays.asList(args), "ok");
+        LaunchMetrics.terminalSpawned(System.nanoTime() - start);
+        LaunchProbe.markNow(LaunchProbe.TERMINAL_SPAWNED);
+        AuditLog.record("launched", null, Arrays.asList(args), null);
         System.out.println("Command executed successfully");
+
+        LaunchProbe probe = LaunchProbe.current();
+        if (probe != null) {
+            probe.awaitAndReport(PROBE_TIMEOUT, out);
+        }
       } catch (IOException e) {
+        LaunchMetrics.processFailed();
+        AuditLog.record("failed", null, Arrays.asList(args), e.getMessage());
         if (isHeadless()) {
             err.println("Failed to execute jbang command: " + e.getMessage());
             e.printStackTrace();
@@ -265,6 +367,11 @@ try {
             showSecurityErrorDialog("Execution Error", "Failed to execute jbang command: " + e.getMessage());
         }
       } catch (SecurityException e) {
+        if (e instanceof CommandSecurityValidator.ValidationException ve) {
+            AuditLog.record("rejected", null, Arrays.asList(args), ve.getRule().id() + ": " + e.getMessage());
+        } else {
+            AuditLog.record("rejected", null, Arrays.asList(args), e.getMessage());
+        }
         if (isHeadless()) {
             err.println("Security violation: " + e.getMessage());
             exit(1);
@@ -275,6 +382,104 @@ try {
       
     }
     
+    /**
+     * Keeps the terminal slot taken while the spawned terminal opens.
+     */
+    private static synchronized void terminalStarted() {
+        if (terminalSlot != null) {
+            try {
+                terminalSlot.started();
+            } catch (IOException e) {
+                err.println("WARN: Failed to record terminal start: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs the commands of several jbang:// URLs side by side in this console,
+     * without a terminal window or confirmation dialog.
+     *
+     * @return the exit code to exit with
+     */
+    private static int runAll(String[] urls) {
+        List<List<String>> commands = new ArrayList<>();
+        try {
+            for (String url : urls) {
+                commands.add(urlToCommand(url));
+            }
+            return MultiCommandRunner.runAll(commands, out, System.console() != null);
+        } catch (IllegalArgumentException e) {
+            err.println("Invalid URL: " + e.getMessage());
+            return 1;
+        } catch (SecurityException e) {
+            err.println("Security violation: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            err.println("Failed to execute jbang commands: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Reports every broken, non-canonical or unsafe jbang:// link found in
+     * the documents below the given directory.
+     *
+     * @return the exit code to exit with, 1 if any problem was found
+     */
+    private static int scanLinks(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            err.println("Not a directory: " + dir);
+            return 1;
+        }
+
+        long start = System.nanoTime();
+        LinkScanner.Result result = LinkScanner.scan(dir);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        for (LinkScanner.Problem problem : result.getProblems()) {
+            out.println(problem);
+        }
+        err.println("Scanned " + result.getFiles() + " files, found " + result.getLinks() + " links and "
+                + result.getProblems().size() + " problems in " + millis + " ms");
+        return result.getProblems().isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Writes a jbang:// link for every entry of a jbang-catalog.json.
+     *
+     * @return the exit code to exit with
+     */
+    private static int exportCatalog(String[] args) {
+        CatalogExporter.Format format = CatalogExporter.Format.LIST;
+        String catalogName = null;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].startsWith("--format=")) {
+                try {
+                    format = CatalogExporter.Format.parse(args[i].substring("--format=".length()));
+                } catch (IllegalArgumentException e) {
+                    err.println(e.getMessage());
+                    return 1;
+                }
+            } else if (args[i].startsWith("--at=")) {
+                catalogName = args[i].substring("--at=".length());
+            } else {
+                err.println("Unknown option: " + args[i]);
+                return 1;
+            }
+        }
+
+        CatalogExporter exporter = new CatalogExporter(out, format, catalogName);
+        try (Reader reader = args[1].equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            exporter.export(reader);
+            return 0;
+        } catch (IOException e) {
+            err.println("Failed to export catalog " + args[1] + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
     /**
      * Reads input from stdin if the argument is "-", otherwise returns the argument at the specified index.
      * 
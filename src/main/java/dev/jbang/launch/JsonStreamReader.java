@@ -0,0 +1,274 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal pull parser for JSON, reading one token at a time so documents of
+ * any size can be processed in constant memory.
+ * <p>
+ * Only what {@link CatalogExporter} needs is supported: navigating objects and
+ * arrays, reading strings and skipping any other value. Separators are
+ * consumed leniently.
+ */
+class JsonStreamReader implements AutoCloseable {
+
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, LITERAL, END_DOCUMENT }
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+
+    /** Nesting of open containers, true for objects; fixed depth keeps memory bounded. */
+    private final boolean[] stack = new boolean[256];
+    private int depth;
+    /** Whether the next string inside the current object is a property name. */
+    private boolean expectName;
+
+    JsonStreamReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     */
+    Token peek() throws IOException {
+        int c = skipSeparators();
+        switch (c) {
+            case -1:
+                return Token.END_DOCUMENT;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                return expectName ? Token.NAME : Token.STRING;
+            default:
+                return Token.LITERAL;
+        }
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+        push(true);
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+        pop();
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+        push(false);
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+        pop();
+    }
+
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    String nextName() throws IOException {
+        if (peek() != Token.NAME) {
+            throw error("Expected a property name");
+        }
+        String name = readString();
+        if (skipWhitespace() != ':') {
+            throw error("Expected ':'");
+        }
+        pos++;
+        expectName = false;
+        return name;
+    }
+
+    String nextString() throws IOException {
+        if (peek() != Token.STRING) {
+            throw error("Expected a string");
+        }
+        String value = readString();
+        valueDone();
+        return value;
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays.
+     */
+    void skipValue() throws IOException {
+        int nested = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    nested++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    nested++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    nested--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    nested--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case STRING:
+                    nextString();
+                    break;
+                case LITERAL:
+                    skipLiteral();
+                    break;
+                case END_DOCUMENT:
+                    throw error("Unexpected end of document");
+            }
+        } while (nested > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void push(boolean object) throws IOException {
+        if (depth == stack.length) {
+            throw error("Nesting too deep");
+        }
+        stack[depth++] = object;
+        expectName = object;
+    }
+
+    private void pop() throws IOException {
+        if (depth == 0) {
+            throw error("Unbalanced document");
+        }
+        depth--;
+        valueDone();
+    }
+
+    private void valueDone() {
+        // After a value inside an object the next string is a name again
+        expectName = depth > 0 && stack[depth - 1];
+    }
+
+    private void expect(char c) throws IOException {
+        if (skipSeparators() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipLiteral() throws IOException {
+        while (fill()) {
+            char c = buffer[pos];
+            if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            pos++;
+        }
+        valueDone();
+    }
+
+    private String readString() throws IOException {
+        pos++; // opening quote
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            if (!fill()) {
+                throw error("Unterminated string");
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                if (!fill()) {
+                    throw error("Unterminated escape");
+                }
+                char e = buffer[pos++];
+                switch (e) {
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u': sb.append(readUnicodeEscape()); break;
+                    default: sb.append(e);
+                }
+            } else {
+                if (c == '\n') {
+                    line++;
+                }
+                sb.append(c);
+            }
+        }
+    }
+
+    private char readUnicodeEscape() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            if (!fill()) {
+                throw error("Unterminated escape");
+            }
+            int digit = Character.digit(buffer[pos++], 16);
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+            value = value * 16 + digit;
+        }
+        return (char) value;
+    }
+
+    /**
+     * Skips whitespace and value separators, returning the next character or -1.
+     */
+    private int skipSeparators() throws IOException {
+        int c;
+        while ((c = skipWhitespace()) == ',') {
+            pos++;
+        }
+        return c;
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (fill()) {
+            char c = buffer[pos];
+            if (c == '\n') {
+                line++;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private boolean fill() throws IOException {
+        if (pos < limit) {
+            return true;
+        }
+        limit = in.read(buffer, 0, buffer.length);
+        pos = 0;
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at line " + line);
+    }
+}
@@ -0,0 +1,121 @@
+package dev.jbang.launch;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters for the launcher, rendered in the Prometheus text
+ * exposition format by {@link MetricsServer}. They are not shared between
+ * JVMs, so they only cover the URIs handled by the resident launcher.
+ * <p>
+ * Recording is always on and costs a few atomic increments, so call sites do
+ * not need to check whether the endpoint is enabled.
+ */
+public class LaunchMetrics {
+
+    /** Upper bounds, in seconds, of the terminal spawn latency histogram buckets. */
+    static final double[] SPAWN_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5};
+
+    private static final LongAdder urisReceived = new LongAdder();
+    private static final Map<CommandSecurityValidator.Rule, LongAdder> validationRejects =
+            new EnumMap<>(CommandSecurityValidator.Rule.class);
+    private static final Map<LaunchThrottle.Reason, LongAdder> urisDropped = new EnumMap<>(LaunchThrottle.Reason.class);
+    private static final LongAdder dialogApproved = new LongAdder();
+    private static final LongAdder dialogDeclined = new LongAdder();
+    private static final LongAdder processFailures = new LongAdder();
+
+    private static final AtomicLongArray spawnBuckets = new AtomicLongArray(SPAWN_BUCKETS.length);
+    private static final LongAdder spawnCount = new LongAdder();
+    private static final LongAdder spawnSumNanos = new LongAdder();
+
+    static {
+        for (CommandSecurityValidator.Rule rule : CommandSecurityValidator.Rule.values()) {
+            validationRejects.put(rule, new LongAdder());
+        }
+        for (LaunchThrottle.Reason reason : LaunchThrottle.Reason.values()) {
+            urisDropped.put(reason, new LongAdder());
+        }
+    }
+
+    public static void uriReceived() {
+        urisReceived.increment();
+    }
+
+    public static void uriDropped(LaunchThrottle.Reason reason) {
+        urisDropped.get(reason).increment();
+    }
+
+    public static void validationRejected(CommandSecurityValidator.Rule rule) {
+        validationRejects.get(rule).increment();
+    }
+
+    public static void dialogAnswered(boolean approved) {
+        (approved ? dialogApproved : dialogDeclined).increment();
+    }
+
+    public static void processFailed() {
+        processFailures.increment();
+    }
+
+    /**
+     * Records how long it took to spawn the terminal for a command.
+     */
+    public static void terminalSpawned(long nanos) {
+        double seconds = nanos / 1e9;
+        for (int i = 0; i < SPAWN_BUCKETS.length; i++) {
+            if (seconds <= SPAWN_BUCKETS[i]) {
+                spawnBuckets.incrementAndGet(i);
+            }
+        }
+        spawnCount.increment();
+        spawnSumNanos.add(nanos);
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format (version 0.0.4).
+     */
+    public static String render() {
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "jbang_launch_uris_received_total", "counter", "jbang:// URIs received.");
+        sb.append("jbang_launch_uris_received_total ").append(urisReceived.sum()).append('\n');
+
+        header(sb, "jbang_launch_uris_dropped_total", "counter", "jbang:// URIs dropped by the throttle, by reason.");
+        for (Map.Entry<LaunchThrottle.Reason, LongAdder> e : urisDropped.entrySet()) {
+            sb.append("jbang_launch_uris_dropped_total{reason=\"").append(e.getKey().id()).append("\"} ")
+                    .append(e.getValue().sum()).append('\n');
+        }
+
+        header(sb, "jbang_launch_validation_rejects_total", "counter", "Commands rejected by the security validator, by rule.");
+        for (Map.Entry<CommandSecurityValidator.Rule, LongAdder> e : validationRejects.entrySet()) {
+            sb.append("jbang_launch_validation_rejects_total{rule=\"").append(e.getKey().id()).append("\"} ")
+                    .append(e.getValue().sum()).append('\n');
+        }
+
+        header(sb, "jbang_launch_dialog_decisions_total", "counter", "Answers to the confirmation dialog.");
+        sb.append("jbang_launch_dialog_decisions_total{decision=\"approve\"} ").append(dialogApproved.sum()).append('\n');
+        sb.append("jbang_launch_dialog_decisions_total{decision=\"decline\"} ").append(dialogDeclined.sum()).append('\n');
+
+        header(sb, "jbang_launch_terminal_spawn_seconds", "histogram", "Time taken to spawn the terminal for a command.");
+        for (int i = 0; i < SPAWN_BUCKETS.length; i++) {
+            sb.append("jbang_launch_terminal_spawn_seconds_bucket{le=\"").append(SPAWN_BUCKETS[i]).append("\"} ")
+                    .append(spawnBuckets.get(i)).append('\n');
+        }
+        long count = spawnCount.sum();
+        sb.append("jbang_launch_terminal_spawn_seconds_bucket{le=\"+Inf\"} ").append(count).append('\n');
+        sb.append("jbang_launch_terminal_spawn_seconds_sum ").append(spawnSumNanos.sum() / 1e9).append('\n');
+        sb.append("jbang_launch_terminal_spawn_seconds_count ").append(count).append('\n');
+
+        header(sb, "jbang_launch_process_failures_total", "counter", "Commands that failed to launch.");
+        sb.append("jbang_launch_process_failures_total ").append(processFailures.sum()).append('\n');
+
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+}
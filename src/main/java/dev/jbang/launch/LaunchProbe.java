@@ -0,0 +1,236 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in end-to-end latency probe, from JVM start to jbang being started in
+ * the terminal.
+ * <p>
+ * Stages inside this JVM are timestamped in memory. For the stages inside the
+ * terminal, {@link TerminalLauncher} wraps the shell command so it appends
+ * wall clock timestamps to the probe file. All timestamps are microseconds
+ * since the epoch so both sides can be compared. In the terminal:
+ * <ul>
+ * <li>{@code shell-started} and {@code shell-ready} come before and after the
+ * user's {@code ~/.bashrc}, as the command runs in an interactive bash with
+ * its own rc file (on Linux; on macOS the command already runs in the user's
+ * login shell, so there is only {@code shell-ready}, after its rc files);</li>
+ * <li>{@code wrapper-started} is right before the jbang command, i.e. the
+ * start of the {@code jbang} wrapper script;</li>
+ * <li>{@code jbang-started} is right before {@code dev.jbang.Main} is started.
+ * Only the direct launch path ({@link DirectLaunch}) reports it, by running
+ * the marker script exported as {@value #MARK_VARIABLE}; the wrapper does not,
+ * so there the wrapper's lookups and jbang's start up are one stage.</li>
+ * </ul>
+ * <p>
+ * Enabled by setting the {@code jbang.launch.probe} system property to a file
+ * path, or to {@code true} to use a temporary file.
+ */
+public class LaunchProbe {
+
+    public static final String PROBE_PROPERTY = "jbang.launch.probe";
+
+    public static final String JVM_STARTED = "jvm-started";
+    public static final String URI_RECEIVED = "uri-received";
+    public static final String DIALOG_ANSWERED = "dialog-answered";
+    public static final String TERMINAL_SPAWNED = "terminal-spawned";
+    public static final String SHELL_STARTED = "shell-started";
+    public static final String SHELL_READY = "shell-ready";
+    public static final String WRAPPER_STARTED = "wrapper-started";
+    public static final String JBANG_STARTED = "jbang-started";
+    public static final String JBANG_EXITED = "jbang-exited";
+
+    /** Environment variable with a script that records the stage given as its argument. */
+    public static final String MARK_VARIABLE = "JBANG_LAUNCH_PROBE_MARK";
+
+    private static final long POLL_MILLIS = 20;
+
+    private static volatile LaunchProbe instance;
+
+    private final Path file;
+    private final Map<String, Long> stages = new LinkedHashMap<>();
+    /** The last stage the terminal reports before jbang runs. */
+    private volatile String awaitedStage = JBANG_STARTED;
+
+    LaunchProbe(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Starts the probe if {@value #PROBE_PROPERTY} is set.
+     */
+    public static synchronized void startIfEnabled() throws IOException {
+        String value = System.getProperty(PROBE_PROPERTY);
+        if (instance != null || value == null || value.isBlank() || value.equals("false")) {
+            return;
+        }
+        Path file = value.equals("true")
+                ? Files.createTempFile("jbang-launch-probe", ".log")
+                : Path.of(value);
+        Files.deleteIfExists(file);
+        Files.createFile(file);
+
+        LaunchProbe probe = new LaunchProbe(file);
+        ProcessHandle.current().info().startInstant()
+                .ifPresent(start -> probe.mark(JVM_STARTED, micros(start)));
+        instance = probe;
+    }
+
+    /**
+     * @return the running probe, or null if probing is not enabled
+     */
+    public static LaunchProbe current() {
+        return instance;
+    }
+
+    /**
+     * Records that a stage was reached now, if probing is enabled.
+     */
+    public static void markNow(String stage) {
+        LaunchProbe probe = instance;
+        if (probe != null) {
+            probe.mark(stage, micros(Instant.now()));
+        }
+    }
+
+    synchronized void mark(String stage, long epochMicros) {
+        stages.putIfAbsent(stage, epochMicros);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Wraps a shell command so the shell reports its stages, and writes the
+     * rc file and marker script next to the probe file.
+     *
+     * @param command the command to run, as passed to {@code bash -c}
+     * @param mac whether the shell runs on macOS, whose {@code date} lacks sub-second precision
+     * @param direct whether the command starts jbang directly and so reports {@code jbang-started}
+     */
+    public String wrapShellCommand(String command, boolean mac, boolean direct) throws IOException {
+        Path mark = file.resolveSibling(file.getFileName() + ".mark");
+        Files.writeString(mark, "#!/bin/sh\n" + marker("$1", mac) + "\n", StandardCharsets.UTF_8);
+        mark.toFile().setExecutable(true, true);
+        awaitedStage = direct ? JBANG_STARTED : WRAPPER_STARTED;
+
+        String inner = marker(SHELL_READY, mac) + "; " + marker(WRAPPER_STARTED, mac) + "; "
+                + "export " + MARK_VARIABLE + "=" + quote(mark.toString()) + "; "
+                + command + "; " + marker(JBANG_EXITED, mac);
+        if (mac) {
+            return inner;
+        }
+        Path rc = file.resolveSibling(file.getFileName() + ".bashrc");
+        Files.writeString(rc, marker(SHELL_STARTED, false) + "\n"
+                + "if [ -f ~/.bashrc ]; then . ~/.bashrc; fi\n", StandardCharsets.UTF_8);
+        return "bash --rcfile " + quote(rc.toString()) + " -i -c " + quote(inner);
+    }
+
+    private String marker(String stage, boolean mac) {
+        String timestamp = mac
+                ? "$(perl -MTime::HiRes=time -e 'printf(q{%d}, time*1e6)')"
+                : "$(date +%s%6N)";
+        return "echo \"" + stage + " " + timestamp + "\" >> " + quote(file.toString());
+    }
+
+    private static String quote(String s) {
+        return "'" + s.replace("'", "'\"'\"'") + "'";
+    }
+
+    /**
+     * Waits for the shell to report the last stage before jbang runs, then
+     * prints the breakdown and appends it to the probe file.
+     */
+    public void awaitAndReport(Duration timeout, PrintStream out) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!readShellStages().containsKey(awaitedStage) && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<String> report = report();
+        report.forEach(out::println);
+        try {
+            List<String> comments = new ArrayList<>();
+            for (String line : report) {
+                comments.add("# " + line);
+            }
+            Files.write(file, comments, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            err.println("WARN: Failed to append report to " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Formats all stages in order, with the time since the first stage and
+     * since the previous one.
+     */
+    synchronized List<String> report() {
+        Map<String, Long> all = new LinkedHashMap<>(stages);
+        readShellStages().forEach(all::putIfAbsent);
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Launch probe (%s):", file));
+        Long first = null;
+        Long previous = null;
+        for (Map.Entry<String, Long> e : all.entrySet()) {
+            long at = e.getValue();
+            if (first == null) {
+                first = at;
+                previous = at;
+            }
+            lines.add(String.format("  %-17s %10.1f ms  (+%.1f ms)", e.getKey(),
+                    (at - first) / 1000.0, (at - previous) / 1000.0));
+            previous = at;
+        }
+        if (!all.containsKey(awaitedStage)) {
+            lines.add("  (no timestamps from the terminal shell yet)");
+        } else if (!all.containsKey(JBANG_STARTED)) {
+            lines.add("  (no jbang-started from the jbang wrapper, set " + DirectLaunch.DIRECT_PROPERTY
+                    + " to time it separately)");
+        }
+        return lines;
+    }
+
+    private Map<String, Long> readShellStages() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length == 2 && !parts[0].startsWith("#")) {
+                    try {
+                        result.putIfAbsent(parts[0], Long.parseLong(parts[1]));
+                    } catch (NumberFormatException ignored) {
+                        // a partially written line, picked up on the next poll
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+            // not written yet
+        }
+        return result;
+    }
+
+    private static long micros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+}
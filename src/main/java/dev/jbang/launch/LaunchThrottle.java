@@ -0,0 +1,363 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Protects the desktop against floods of jbang:// links, e.g. from a web page
+ * opening them in a loop.
+ * <p>
+ * Every link is handled by its own JVM, so the limits are shared through files
+ * in a private per-user directory:
+ * <ul>
+ * <li>a token bucket of {@code jbang.launch.rate} links per minute (30 by
+ * default, 0 disables it) with bursts of up to {@code jbang.launch.rate.burst}
+ * (10), kept in a state file that is locked while it is updated;</li>
+ * <li>at most {@code jbang.launch.maxDialogs} (3) confirmation dialogs open at
+ * a time, each holding one of a fixed number of lock files for as long as its
+ * JVM runs;</li>
+ * <li>at most {@code jbang.launch.maxTerminals} (5) terminals starting at a
+ * time. A slot is held from before the dialog until the launcher exits, and
+ * for a short while after the terminal was spawned, while the emulator opens
+ * its window. Terminals that are already open do not count.</li>
+ * </ul>
+ * Links over these limits are dropped before any dialog or terminal is
+ * started. Instead of a message per dropped link, the first one dropped waits
+ * a moment and then shows a single notification with the number dropped.
+ */
+public class LaunchThrottle {
+
+    public static final String RATE_PROPERTY = "jbang.launch.rate";
+    public static final String BURST_PROPERTY = "jbang.launch.rate.burst";
+    public static final String MAX_DIALOGS_PROPERTY = "jbang.launch.maxDialogs";
+    public static final String MAX_TERMINALS_PROPERTY = "jbang.launch.maxTerminals";
+
+    static final int DEFAULT_RATE = 30;
+    static final int DEFAULT_BURST = 10;
+    static final int DEFAULT_MAX_DIALOGS = 3;
+    static final int DEFAULT_MAX_TERMINALS = 5;
+    /** How long the first dropped link waits for others before notifying. */
+    static final long SUMMARY_DELAY_MILLIS = 3000;
+    /** How long a slot stays taken after its terminal was spawned. */
+    static final long TERMINAL_STARTUP_MILLIS = 2000;
+
+    /** Why a link was dropped. */
+    public enum Reason {
+        RATE("rate"), DIALOGS("dialogs"), TERMINALS("terminals");
+
+        private final String id;
+
+        Reason(String id) {
+            this.id = id;
+        }
+
+        public String id() {
+            return id;
+        }
+    }
+
+    private final Path dir;
+    private final int perMinute;
+    private final int burst;
+    private final int maxDialogs;
+    private final int maxTerminals;
+    private final long summaryDelayMillis;
+    private final long terminalStartupMillis;
+
+    LaunchThrottle(Path dir, int perMinute, int burst, int maxDialogs, int maxTerminals, long summaryDelayMillis,
+            long terminalStartupMillis) {
+        this.dir = dir;
+        this.perMinute = perMinute;
+        this.burst = Math.max(1, burst);
+        this.maxDialogs = maxDialogs;
+        this.maxTerminals = maxTerminals;
+        this.summaryDelayMillis = summaryDelayMillis;
+        this.terminalStartupMillis = terminalStartupMillis;
+    }
+
+    /**
+     * Creates a throttle configured from the system properties.
+     */
+    public static LaunchThrottle create() {
+        return new LaunchThrottle(PrivateDirectory.of("throttle"),
+                Integer.getInteger(RATE_PROPERTY, DEFAULT_RATE),
+                Integer.getInteger(BURST_PROPERTY, DEFAULT_BURST),
+                Integer.getInteger(MAX_DIALOGS_PROPERTY, DEFAULT_MAX_DIALOGS),
+                Integer.getInteger(MAX_TERMINALS_PROPERTY, DEFAULT_MAX_TERMINALS),
+                SUMMARY_DELAY_MILLIS, TERMINAL_STARTUP_MILLIS);
+    }
+
+    /**
+     * Takes a token from the bucket.
+     *
+     * @return false if the rate limit is exceeded
+     */
+    public boolean tryAcquireToken() throws IOException {
+        if (perMinute <= 0) {
+            return true;
+        }
+        return withState(state -> {
+            long now = System.currentTimeMillis();
+            long elapsed = Math.max(0, now - state.refilledAt);
+            state.tokens = Math.min(burst, state.tokens + elapsed * perMinute / 60_000.0);
+            state.refilledAt = now;
+            if (state.tokens < 1) {
+                return false;
+            }
+            state.tokens--;
+            return true;
+        });
+    }
+
+    /**
+     * Takes one of the dialog slots, released when the returned slot is closed
+     * or this JVM exits.
+     *
+     * @return the slot, or null if the maximum number of dialogs is pending
+     */
+    public Slot tryAcquireDialogSlot() throws IOException {
+        return tryAcquireSlot("dialog", maxDialogs);
+    }
+
+    /**
+     * Takes one of the terminal slots, held until the returned slot is closed
+     * or this JVM exits, and for a short while after {@link Slot#started()}.
+     *
+     * @return the slot, or null if the maximum number of terminals is starting
+     */
+    public Slot tryAcquireTerminalSlot() throws IOException {
+        return tryAcquireSlot("terminal", maxTerminals);
+    }
+
+    private Slot tryAcquireSlot(String kind, int max) throws IOException {
+        if (max <= 0) {
+            return new Slot(null, null);
+        }
+        PrivateDirectory.prepare(dir);
+        long startedBefore = System.currentTimeMillis() - terminalStartupMillis;
+        for (int i = 0; i < max; i++) {
+            FileChannel channel = FileChannel.open(dir.resolve(kind + "-" + i + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                // Taken by this JVM
+                lock = null;
+            }
+            if (lock != null) {
+                Slot slot = new Slot(channel, lock);
+                if (slot.startedAt() < startedBefore) {
+                    return slot;
+                }
+                // Its terminal is still opening
+                slot.close();
+            } else {
+                channel.close();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts a dropped link. The first link dropped after a quiet period waits
+     * for further drops and then shows one notification for all of them; any
+     * other drop returns immediately.
+     */
+    public void dropped(Reason reason, boolean notify) throws IOException {
+        err.println("WARN: Ignoring jbang:// link, too many " + (reason == Reason.RATE ? "links in a short time"
+                : reason == Reason.DIALOGS ? "confirmation dialogs open" : "terminals starting"));
+
+        long now = System.currentTimeMillis();
+        boolean reporter = withState(state -> {
+            state.dropped++;
+            if (state.reportingUntil > now) {
+                return false;
+            }
+            state.reportingUntil = now + summaryDelayMillis;
+            return true;
+        });
+        if (!reporter) {
+            return;
+        }
+
+        try {
+            Thread.sleep(summaryDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long count = withState(state -> {
+            long n = state.dropped;
+            state.dropped = 0;
+            state.reportingUntil = 0;
+            return n;
+        });
+        String message = "Ignored " + count + " jbang:// link" + (count == 1 ? "" : "s")
+                + (reason == Reason.TERMINALS
+                        ? " while too many terminals were starting."
+                        : " that arrived faster than they can be confirmed.")
+                + " If you did not open them, the page that did may be misbehaving.";
+        err.println("INFO: " + message);
+        if (notify) {
+            notifyUser("jbang:// links ignored", message);
+        }
+    }
+
+    /**
+     * Shows a desktop notification, without loading AWT.
+     */
+    static void notifyUser(String title, String message) {
+        List<String> cmd = notificationCommand(System.getProperty("os.name"), title, message);
+        if (cmd == null) {
+            return;
+        }
+        try {
+            new ProcessBuilder(cmd)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            err.println("WARN: Failed to show notification: " + e.getMessage());
+        }
+    }
+
+    static List<String> notificationCommand(String osName, String title, String message) {
+        String os = osName == null ? "" : osName.toLowerCase(Locale.ROOT);
+        if (os.contains("mac")) {
+            return List.of("osascript", "-e", "display notification \"" + appleScriptString(message)
+                    + "\" with title \"" + appleScriptString(title) + "\"");
+        }
+        if (os.contains("nux") || os.contains("nix")) {
+            Path notifySend = Executables.find("notify-send");
+            if (notifySend != null) {
+                return List.of(notifySend.toString(), "--app-name=jbang-launch", title, message);
+            }
+        }
+        return null;
+    }
+
+    private static String appleScriptString(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /** Shared counters, stored as a single line of text. */
+    static final class State {
+        double tokens;
+        long refilledAt;
+        long dropped;
+        long reportingUntil;
+
+        String format() {
+            return tokens + " " + refilledAt + " " + dropped + " " + reportingUntil + "\n";
+        }
+    }
+
+    interface StateUpdate<T> {
+        T apply(State state);
+    }
+
+    /**
+     * Reads, updates and writes the state file while holding its lock.
+     */
+    <T> T withState(StateUpdate<T> update) throws IOException {
+        PrivateDirectory.prepare(dir);
+        // Only one thread of a JVM may hold the file lock at a time
+        synchronized (LaunchThrottle.class) {
+            try (FileChannel channel = FileChannel.open(dir.resolve("state"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), 1024));
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // read the whole line
+                }
+                State state = parse(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+
+                T result = update.apply(state);
+
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(state.format().getBytes(StandardCharsets.US_ASCII)), 0);
+                return result;
+            }
+        }
+    }
+
+    private State parse(String line) {
+        State state = new State();
+        String[] parts = line.trim().split(" ");
+        try {
+            if (parts.length == 4) {
+                state.tokens = Double.parseDouble(parts[0]);
+                state.refilledAt = Long.parseLong(parts[1]);
+                state.dropped = Long.parseLong(parts[2]);
+                state.reportingUntil = Long.parseLong(parts[3]);
+                return state;
+            }
+        } catch (NumberFormatException ignored) {
+            // start over below
+        }
+        state = new State();
+        state.tokens = burst;
+        state.refilledAt = System.currentTimeMillis();
+        return state;
+    }
+
+    /**
+     * A taken slot; the lock is released on close or when the JVM exits.
+     */
+    public static final class Slot implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final FileLock lock;
+
+        Slot(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+
+        /**
+         * Records that the terminal of this slot was spawned, which keeps the
+         * slot taken while the terminal opens, even after this JVM exits.
+         */
+        public void started() throws IOException {
+            if (channel != null) {
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(String.valueOf(System.currentTimeMillis())
+                        .getBytes(StandardCharsets.US_ASCII)), 0);
+            }
+        }
+
+        long startedAt() throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(32);
+            channel.read(buffer, 0);
+            try {
+                return Long.parseLong(new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (lock != null) {
+                    lock.release();
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
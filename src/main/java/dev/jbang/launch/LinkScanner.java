@@ -0,0 +1,297 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds jbang:// links in documentation trees (Markdown, AsciiDoc and HTML)
+ * and checks that each one decodes, is canonically encoded and passes
+ * {@link CommandSecurityValidator}.
+ * <p>
+ * Directories are walked with fork/join tasks and the raw bytes of each file
+ * are scanned, so only the links themselves get decoded. Small files, the
+ * bulk of a documentation tree, are read into a buffer reused by each worker
+ * thread; only files of {@value #MAP_THRESHOLD} bytes or more are memory-mapped,
+ * as every mapping lives until it is garbage collected and a large tree could
+ * otherwise exhaust the process's mapping limit.
+ */
+public class LinkScanner {
+
+    static final Set<String> EXTENSIONS = Set.of("md", "markdown", "adoc", "asciidoc", "asc", "html", "htm");
+
+    private static final byte[] SCHEME = "jbang://".getBytes(StandardCharsets.US_ASCII);
+
+    /** Number of files scanned by a single task before work is split further. */
+    private static final int FILES_PER_TASK = 64;
+
+    /** Files at least this large are memory-mapped instead of read. */
+    static final int MAP_THRESHOLD = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAP_THRESHOLD));
+
+    public enum Kind {
+        READ_ERROR("read error"),
+        DECODING_ERROR("decoding error"),
+        NON_CANONICAL("non-canonical"),
+        SECURITY_REJECT("security reject");
+
+        private final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * A problem found for a link, or for a file that could not be read.
+     */
+    public record Problem(Path file, int line, Kind kind, String link, String detail) {
+        @Override
+        public String toString() {
+            return file + ":" + line + ": " + kind + ": " + (link == null ? "" : link + ": ") + detail;
+        }
+    }
+
+    /**
+     * Outcome of a scan.
+     */
+    public static final class Result {
+        private long files;
+        private long links;
+        private final List<Problem> problems = new ArrayList<>();
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getLinks() {
+            return links;
+        }
+
+        public List<Problem> getProblems() {
+            return problems;
+        }
+
+        private Result merge(Result other) {
+            files += other.files;
+            links += other.links;
+            problems.addAll(other.problems);
+            return this;
+        }
+    }
+
+    /**
+     * Scans a directory tree in parallel using the common fork/join pool.
+     *
+     * @param root the directory to scan
+     * @return the scan result, with problems sorted by file and line
+     */
+    public static Result scan(Path root) {
+        return scan(root, ForkJoinPool.commonPool());
+    }
+
+    public static Result scan(Path root, ForkJoinPool pool) {
+        Result result = pool.invoke(new DirectoryTask(root));
+        result.problems.sort(Comparator.comparing(Problem::file).thenComparingInt(Problem::line));
+        return result;
+    }
+
+    static boolean isDocument(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Scans a single file, memory-mapping it only if it is large.
+     */
+    static Result scanFile(Path file) {
+        Result result = new Result();
+        result.files = 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                result.problems.add(new Problem(file, 0, Kind.READ_ERROR, null, "file too large (" + size + " bytes)"));
+                return result;
+            }
+            ByteBuffer buffer;
+            if (size >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = READ_BUFFER.get().clear();
+                buffer.limit((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    // read the whole file
+                }
+                buffer.flip();
+            }
+            scanBuffer(file, buffer, result);
+        } catch (IOException e) {
+            result.problems.add(new Problem(file, 0, Kind.READ_ERROR, null, String.valueOf(e.getMessage())));
+        }
+        return result;
+    }
+
+    private static void scanBuffer(Path file, ByteBuffer buffer, Result result) {
+        int limit = buffer.limit();
+        int line = 1;
+        int i = 0;
+        while (i < limit) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                line++;
+                i++;
+            } else if (b == 'j' && startsWithScheme(buffer, i, limit)) {
+                int end = i + SCHEME.length;
+                while (end < limit && !isLinkTerminator(buffer.get(end))) {
+                    end++;
+                }
+                int trimmed = end;
+                while (trimmed > i + SCHEME.length && isTrailingPunctuation(buffer.get(trimmed - 1))) {
+                    trimmed--;
+                }
+                byte[] bytes = new byte[trimmed - i];
+                buffer.get(i, bytes);
+                result.links++;
+                checkLink(file, line, new String(bytes, StandardCharsets.UTF_8), result.problems);
+                i = end;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Round-trips a link through {@link UrlConverter} and validates the command.
+     */
+    static void checkLink(Path file, int line, String link, List<Problem> problems) {
+        List<String> command;
+        try {
+            command = UrlConverter.urlToCommand(link);
+        } catch (IllegalArgumentException e) {
+            problems.add(new Problem(file, line, Kind.DECODING_ERROR, link, e.getMessage()));
+            return;
+        }
+
+        try {
+            URI canonical = UrlConverter.commandToUrl(command.toArray(new String[0]));
+            if (!link.equals(canonical.toString()) && !link.equals(canonical.toASCIIString())) {
+                problems.add(new Problem(file, line, Kind.NON_CANONICAL, link, "expected " + canonical.toASCIIString()));
+            }
+        } catch (IllegalArgumentException e) {
+            problems.add(new Problem(file, line, Kind.DECODING_ERROR, link, e.getMessage()));
+            return;
+        }
+
+        try {
+            CommandSecurityValidator.validateCommand(command);
+        } catch (SecurityException e) {
+            problems.add(new Problem(file, line, Kind.SECURITY_REJECT, link, e.getMessage()));
+        }
+    }
+
+    private static boolean startsWithScheme(ByteBuffer buffer, int offset, int limit) {
+        if (offset + SCHEME.length > limit) {
+            return false;
+        }
+        for (int j = 1; j < SCHEME.length; j++) {
+            if (buffer.get(offset + j) != SCHEME[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLinkTerminator(byte b) {
+        // Whitespace, control characters and the delimiters used around links in Markdown, AsciiDoc and HTML
+        return (b >= 0 && b <= ' ') || b == '"' || b == '\'' || b == '<' || b == '>' || b == '`'
+                || b == '(' || b == ')' || b == '[' || b == ']' || b == '|';
+    }
+
+    private static boolean isTrailingPunctuation(byte b) {
+        return b == '.' || b == ',' || b == ';' || b == ':' || b == '!' || b == '?';
+    }
+
+    /**
+     * Scans the documents of one directory and forks a task per subdirectory.
+     */
+    private static final class DirectoryTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        DirectoryTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            List<RecursiveTask<Result>> tasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        tasks.add(new DirectoryTask(entry));
+                    } else if (isDocument(entry) && Files.isRegularFile(entry)) {
+                        files.add(entry);
+                        if (files.size() == FILES_PER_TASK) {
+                            tasks.add(new FilesTask(files));
+                            files = new ArrayList<>();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                result.problems.add(new Problem(dir, 0, Kind.READ_ERROR, null, String.valueOf(e.getMessage())));
+            }
+            for (RecursiveTask<Result> task : tasks) {
+                task.fork();
+            }
+            result.merge(new FilesTask(files).compute());
+            for (RecursiveTask<Result> task : tasks) {
+                result.merge(task.join());
+            }
+            return result;
+        }
+    }
+
+    private static final class FilesTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+
+        FilesTask(List<Path> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            for (Path file : files) {
+                result.merge(scanFile(file));
+            }
+            return result;
+        }
+    }
+}
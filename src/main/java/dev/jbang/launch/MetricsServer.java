@@ -0,0 +1,85 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Opt-in HTTP endpoint serving {@link LaunchMetrics} at {@code /metrics}.
+ * <p>
+ * Enabled by setting the {@code jbang.launch.metrics.port} system property
+ * (0 picks a free port). The server only ever binds to the loopback address.
+ * <p>
+ * The counters are those of the serving JVM alone, and the endpoint is only
+ * started by the resident launcher, i.e. when started without a URI, as on
+ * macOS where links are delivered to the running app. Links opened on Linux
+ * and Windows each start a JVM of their own, which is not counted here; the
+ * audit log ({@link AuditLog}) records those.
+ */
+public class MetricsServer {
+
+    public static final String PORT_PROPERTY = "jbang.launch.metrics.port";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private MetricsServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts the endpoint if {@value #PORT_PROPERTY} is set.
+     *
+     * @return the running server, or null if metrics are not enabled
+     */
+    public static MetricsServer startIfEnabled() throws IOException {
+        String port = System.getProperty(PORT_PROPERTY);
+        if (port == null || port.isBlank()) {
+            return null;
+        }
+        try {
+            return start(Integer.parseInt(port.trim()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid " + PORT_PROPERTY + ": " + port);
+        }
+    }
+
+    /**
+     * Starts the endpoint on the given loopback port.
+     */
+    public static MetricsServer start(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", MetricsServer::handle);
+        server.start();
+        return new MetricsServer(server);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = LaunchMetrics.render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package dev.jbang.launch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several jbang commands at once as child processes and merges their
+ * stdout and stderr into one console stream, prefixing every line with the
+ * command it came from (similar to {@code docker-compose logs}).
+ * <p>
+ * The JDK offers no selectable channel for process pipes, so instead of one
+ * reader thread per stream a single multiplexer loop polls every pipe with
+ * {@link InputStream#available()} and only reads what is already buffered.
+ * Each stream gets a fixed size line buffer; lines longer than that are
+ * flushed in pieces so a chatty process cannot exhaust memory.
+ */
+public class MultiCommandRunner {
+
+    /** Maximum number of bytes buffered per stream before a partial line is flushed. */
+    static final int MAX_LINE_BYTES = 8 * 1024;
+
+    private static final int READ_CHUNK = 4 * 1024;
+    private static final long IDLE_SLEEP_MILLIS = 10;
+
+    private static final String[] COLORS = {
+        "\u001B[36m", "\u001B[33m", "\u001B[32m", "\u001B[35m", "\u001B[34m", "\u001B[31m"
+    };
+    private static final String RESET = "\u001B[0m";
+
+    /**
+     * Runs all commands concurrently and waits for them to finish.
+     *
+     * @param commands the command lines to run, each including "jbang" as the first element
+     * @param out the stream the merged output is written to
+     * @param color whether to colour the per-command prefix using ANSI escapes
+     * @return 0 if all commands succeeded, otherwise the first non-zero exit code
+     * @throws SecurityException if any command is not a jbang command or fails validation;
+     *         nothing is started in that case
+     * @throws IOException if a process cannot be started
+     */
+    public static int runAll(List<List<String>> commands, PrintStream out, boolean color) throws IOException {
+        if (commands == null || commands.isEmpty()) {
+            throw new IllegalArgumentException("No commands specified.");
+        }
+
+        // Validate everything up front so we never start half of a batch
+        for (List<String> command : commands) {
+            CommandSecurityValidator.validateCommand(command);
+            // The scheme of the URL becomes the executable, so anything but jbang
+            // would run an arbitrary program without a dialog
+            if (!command.get(0).equals("jbang")) {
+                throw new SecurityException("Only jbang commands can be run, not: " + command.get(0));
+            }
+        }
+
+        return run(commands, out, color);
+    }
+
+    /**
+     * Runs already validated commands, see {@link #runAll}.
+     */
+    static int run(List<List<String>> commands, PrintStream out, boolean color) throws IOException {
+        int width = String.valueOf(commands.size()).length();
+        List<Child> children = new ArrayList<>();
+        try {
+            for (int i = 0; i < commands.size(); i++) {
+                String label = String.format("%" + width + "d", i + 1);
+                String prefix = color
+                        ? COLORS[i % COLORS.length] + label + " |" + RESET + " "
+                        : label + " | ";
+                out.println(prefix + String.join(" ", commands.get(i)));
+
+                Process process = new ProcessBuilder(commands.get(i))
+                        .redirectInput(ProcessBuilder.Redirect.from(nullFile()))
+                        .start();
+                children.add(new Child(process, prefix, out));
+            }
+            multiplex(children);
+        } finally {
+            for (Child child : children) {
+                child.process.destroy();
+            }
+        }
+
+        int result = 0;
+        for (Child child : children) {
+            int exitCode = child.process.exitValue();
+            out.println(child.prefix + "exited with code " + exitCode);
+            if (result == 0 && exitCode != 0) {
+                result = exitCode;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Single threaded read loop over all child pipes. Returns once every
+     * process has exited and its pipes are drained.
+     */
+    private static void multiplex(List<Child> children) throws IOException {
+        byte[] chunk = new byte[READ_CHUNK];
+        boolean running = true;
+        while (running) {
+            running = false;
+            boolean progress = false;
+            for (Child child : children) {
+                boolean alive = child.process.isAlive();
+                boolean read = child.stdout.poll(chunk) | child.stderr.poll(chunk);
+                if (alive || read) {
+                    running = true;
+                } else {
+                    // The process is gone and its pipes report nothing more buffered
+                    child.stdout.finish();
+                    child.stderr.finish();
+                }
+                progress |= read;
+            }
+            if (running && !progress) {
+                try {
+                    Thread.sleep(IDLE_SLEEP_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for commands", e);
+                }
+            }
+        }
+    }
+
+    private static File nullFile() {
+        return new File(System.getProperty("os.name").toLowerCase().contains("win") ? "NUL" : "/dev/null");
+    }
+
+    private static final class Child {
+        final Process process;
+        final String prefix;
+        final StreamPump stdout;
+        final StreamPump stderr;
+
+        Child(Process process, String prefix, PrintStream out) {
+            this.process = process;
+            this.prefix = prefix;
+            this.stdout = new StreamPump(process.getInputStream(), new LineSplitter(prefix, out, MAX_LINE_BYTES));
+            this.stderr = new StreamPump(process.getErrorStream(), new LineSplitter(prefix, out, MAX_LINE_BYTES));
+        }
+    }
+
+    /**
+     * Reads whatever is currently available on a pipe without blocking.
+     */
+    private static final class StreamPump {
+        private final InputStream in;
+        private final LineSplitter lines;
+        private boolean finished;
+
+        StreamPump(InputStream in, LineSplitter lines) {
+            this.in = in;
+            this.lines = lines;
+        }
+
+        boolean poll(byte[] chunk) throws IOException {
+            if (finished) {
+                return false;
+            }
+            int available = in.available();
+            if (available <= 0) {
+                return false;
+            }
+            int n = in.read(chunk, 0, Math.min(available, chunk.length));
+            if (n < 0) {
+                finish();
+                return false;
+            }
+            lines.accept(chunk, 0, n);
+            return true;
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                lines.flush();
+            }
+        }
+    }
+
+    /**
+     * Splits a byte stream into prefixed lines using a bounded buffer.
+     */
+    static final class LineSplitter {
+        private final String prefix;
+        private final PrintStream out;
+        private final int maxLineBytes;
+        private final ByteArrayOutputStream line;
+
+        LineSplitter(String prefix, PrintStream out, int maxLineBytes) {
+            this.prefix = prefix;
+            this.out = out;
+            this.maxLineBytes = maxLineBytes;
+            this.line = new ByteArrayOutputStream(Math.min(maxLineBytes, 256));
+        }
+
+        void accept(byte[] data, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                byte b = data[i];
+                if (b == '\n') {
+                    emit();
+                } else if (b != '\r') {
+                    line.write(b);
+                    if (line.size() >= maxLineBytes) {
+                        flush();
+                    }
+                }
+            }
+        }
+
+        void flush() {
+            if (line.size() > 0) {
+                emit();
+            }
+        }
+
+        private void emit() {
+            String text = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            line.reset();
+            synchronized (out) {
+                out.println(prefix + text);
+            }
+        }
+    }
+}
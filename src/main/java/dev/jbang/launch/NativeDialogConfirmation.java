@@ -0,0 +1,181 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Confirmation dialogs using {@code zenity} (GNOME and most other desktops)
+ * or {@code kdialog} (KDE), avoiding the start up cost of AWT and Swing.
+ * <p>
+ * zenity closes its own dialog on timeout; kdialog has no such option and is
+ * killed once the timeout has passed.
+ * <p>
+ * zenity exits with 1 both when the user declines and when GTK cannot open
+ * the display. The latter is told apart by its error output, and the Swing
+ * dialog is used instead.
+ */
+public class NativeDialogConfirmation implements ConfirmationBackend {
+
+    /** Exit code of zenity when its {@code --timeout} has passed. */
+    static final int ZENITY_TIMEOUT_EXIT_CODE = 5;
+
+    /** Error output of GTK and Qt when there is no usable display. */
+    private static final Pattern DISPLAY_FAILURE = Pattern.compile(
+            "(?i)cannot open display|failed to open display|unable to open display|could not connect to display");
+
+    private final Path tool;
+    private final boolean kdialog;
+    private final Supplier<ConfirmationBackend> fallback;
+    private ConfirmationBackend fallbackBackend;
+
+    public NativeDialogConfirmation(Path tool) {
+        this(tool, SwingConfirmation::new);
+    }
+
+    NativeDialogConfirmation(Path tool, Supplier<ConfirmationBackend> fallback) {
+        this.tool = tool;
+        this.kdialog = tool.getFileName().toString().startsWith("kdialog");
+        this.fallback = fallback;
+    }
+
+    Path getTool() {
+        return tool;
+    }
+
+    @Override
+    public boolean confirm(String title, String message, Duration timeout) throws IOException {
+        Result result = run(questionCommand(title, message, timeout), timeout);
+        if (!kdialog && result.exitCode() == ZENITY_TIMEOUT_EXIT_CODE && timeout != null) {
+            throw new DialogTimeoutException(timeout);
+        }
+        if (isDisplayFailure(result)) {
+            return fallback().confirm(title, message, timeout);
+        }
+        return parseAnswer(result.exitCode());
+    }
+
+    @Override
+    public void showError(String title, String message, Duration timeout) throws IOException {
+        Result result = run(errorCommand(title, message, timeout), timeout);
+        if (!kdialog && result.exitCode() == ZENITY_TIMEOUT_EXIT_CODE && timeout != null) {
+            throw new DialogTimeoutException(timeout);
+        }
+        if (isDisplayFailure(result)) {
+            fallback().showError(title, message, timeout);
+        }
+    }
+
+    private boolean isDisplayFailure(Result result) {
+        return result.exitCode() != 0 && DISPLAY_FAILURE.matcher(result.stderr()).find();
+    }
+
+    private synchronized ConfirmationBackend fallback() {
+        if (fallbackBackend == null) {
+            System.err.println("WARN: " + tool.getFileName() + " cannot open the display, falling back to Swing dialog");
+            fallbackBackend = fallback.get();
+        }
+        return fallbackBackend;
+    }
+
+    List<String> questionCommand(String title, String message, Duration timeout) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(tool.toString());
+        if (kdialog) {
+            cmd.addAll(List.of("--title", title, "--yesno", message, "--yes-label", "Yes", "--no-label", "No"));
+        } else {
+            cmd.addAll(List.of("--question", "--title=" + title, "--text=" + message,
+                    "--ok-label=Yes", "--cancel-label=No", "--no-markup", "--no-wrap"));
+            addZenityTimeout(cmd, timeout);
+        }
+        return cmd;
+    }
+
+    List<String> errorCommand(String title, String message, Duration timeout) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(tool.toString());
+        if (kdialog) {
+            cmd.addAll(List.of("--title", title, "--error", message));
+        } else {
+            cmd.addAll(List.of("--error", "--title=" + title, "--text=" + message, "--no-markup"));
+            addZenityTimeout(cmd, timeout);
+        }
+        return cmd;
+    }
+
+    private static void addZenityTimeout(List<String> cmd, Duration timeout) {
+        if (timeout != null) {
+            // zenity only takes whole seconds
+            long seconds = Math.max(1, (timeout.toMillis() + 999) / 1000);
+            cmd.add("--timeout=" + seconds);
+        }
+    }
+
+    /**
+     * Interprets the exit code of a question dialog.
+     * <p>
+     * Both tools exit with 0 for yes and 1 for no or a closed window; kdialog
+     * also uses 2 for cancel.
+     *
+     * @throws IOException for exit codes that indicate the dialog failed
+     */
+    boolean parseAnswer(int exitCode) throws IOException {
+        switch (exitCode) {
+            case 0:
+                return true;
+            case 1:
+                return false;
+            case 2:
+                if (kdialog) {
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IOException(tool.getFileName() + " failed with exit code " + exitCode);
+    }
+
+    /** Exit code and error output of a dialog process. */
+    record Result(int exitCode, String stderr) {
+    }
+
+    private Result run(List<String> cmd, Duration timeout) throws IOException {
+        Process process = new ProcessBuilder(cmd)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        // Read while the dialog is open, so chatty GTK warnings cannot fill the pipe
+        CompletableFuture<String> stderr = CompletableFuture.supplyAsync(() -> {
+            try (InputStream in = process.getErrorStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                return "";
+            }
+        });
+        try {
+            if (timeout == null) {
+                process.waitFor();
+            } else {
+                // zenity exits by itself, for it the extra second is only a backstop
+                long waitMillis = kdialog ? timeout.toMillis() : timeout.toMillis() + 1000;
+                if (!process.waitFor(waitMillis, TimeUnit.MILLISECONDS)) {
+                    process.destroy();
+                    throw new DialogTimeoutException(timeout);
+                }
+            }
+            return new Result(process.exitValue(), stderr.join());
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + cmd.get(0), e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dev.jbang.launch;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Per-user directories for state shared between launcher processes.
+ * <p>
+ * Other users must not be able to write there, or they could influence what
+ * gets launched; on POSIX file systems this is checked every time.
+ */
+class PrivateDirectory {
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    private PrivateDirectory() {
+    }
+
+    /**
+     * @return {@code jbang-launch-<name>-<user>} below {@code XDG_RUNTIME_DIR},
+     *         or below the temporary directory if that is not set
+     */
+    static Path of(String name) {
+        String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+        Path base = runtimeDir != null && !runtimeDir.isBlank()
+                ? Path.of(runtimeDir)
+                : Path.of(System.getProperty("java.io.tmpdir"));
+        return base.resolve("jbang-launch-" + name + "-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * Creates the directory if needed and checks that only its owner, the
+     * current user, can access it.
+     *
+     * @throws IOException if the directory cannot be created or is not private
+     */
+    static Path prepare(Path dir) throws IOException {
+        boolean posix = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+        if (!Files.isDirectory(dir)) {
+            if (posix) {
+                Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+            } else {
+                Files.createDirectories(dir);
+            }
+        }
+        if (posix) {
+            if (Files.isSymbolicLink(dir)
+                    || !Files.getOwner(dir).getName().equals(System.getProperty("user.name"))
+                    || !Files.getPosixFilePermissions(dir).equals(OWNER_ONLY)) {
+                throw new IOException("Directory " + dir + " must be a directory only accessible by its owner");
+            }
+        }
+        return dir;
+    }
+}
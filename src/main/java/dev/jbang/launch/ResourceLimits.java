@@ -0,0 +1,253 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Runs launched commands in a resource-limited cgroup on Linux, so a runaway
+ * application cannot starve the rest of the desktop.
+ * <p>
+ * The command is started either in a transient {@code systemd-run --user
+ * --scope} unit, or in a new child of a delegated cgroup v2 directory that the
+ * user can write to. When the command exits, the CPU time, peak memory and
+ * peak number of tasks of its cgroup are printed in the terminal. Without
+ * either mechanism the command runs unlimited.
+ * <p>
+ * Enabled by setting {@code jbang.launch.limits} to {@code auto},
+ * {@code systemd} or {@code cgroup}. The limits are set with
+ * {@code jbang.launch.limits.memoryMax} (e.g. {@code 2G}),
+ * {@code jbang.launch.limits.cpuWeight} (1-10000, 50 by default) and
+ * {@code jbang.launch.limits.tasksMax}; {@code jbang.launch.limits.cgroup} is
+ * the delegated directory for the cgroup mode.
+ */
+public class ResourceLimits {
+
+    public static final String MODE_PROPERTY = "jbang.launch.limits";
+    public static final String MEMORY_MAX_PROPERTY = "jbang.launch.limits.memoryMax";
+    public static final String CPU_WEIGHT_PROPERTY = "jbang.launch.limits.cpuWeight";
+    public static final String TASKS_MAX_PROPERTY = "jbang.launch.limits.tasksMax";
+    public static final String CGROUP_PROPERTY = "jbang.launch.limits.cgroup";
+
+    static final String DEFAULT_CPU_WEIGHT = "50";
+
+    enum Mode { AUTO, SYSTEMD, CGROUP }
+
+    private static final Pattern MEMORY = Pattern.compile("(\\d+)([KMGT]?)|infinity");
+    private static final Pattern NUMBER = Pattern.compile("\\d+|infinity");
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Prints the usage of the cgroup the shell runs in. Runs inside the cgroup,
+     * as it is removed as soon as the last process in it exits.
+     */
+    static final String REPORT =
+            "__rc=$?; __root=/sys/fs/cgroup; if [ -d $__root/unified ]; then __root=$__root/unified; fi; "
+            + "__cg=$__root$(sed -n \"s/^0:://p\" /proc/self/cgroup); "
+            + "if [ \"$__cg\" = \"$__root/\" ]; then __cg=/nonexistent; fi; "
+            + "__cpu=$(sed -n \"s/^usage_usec //p\" \"$__cg/cpu.stat\" 2>/dev/null); "
+            + "__mem=$(cat \"$__cg/memory.peak\" 2>/dev/null); "
+            + "__pids=$(cat \"$__cg/pids.peak\" 2>/dev/null); "
+            + "__cpu=${__cpu:+$((__cpu / 1000)) ms}; __mem=${__mem:+$((__mem / 1048576)) MB}; "
+            + "echo \"jbang-launch: exit code $__rc, cpu ${__cpu:-n/a}, "
+            + "memory peak ${__mem:-n/a}, tasks peak ${__pids:-n/a}\"; "
+            + "exit $__rc";
+
+    private final Mode mode;
+    private final String memoryMax;
+    private final String cpuWeight;
+    private final String tasksMax;
+    private final Path cgroup;
+
+    ResourceLimits(Mode mode, String memoryMax, String cpuWeight, String tasksMax, Path cgroup) {
+        this.mode = mode;
+        this.memoryMax = check(MEMORY_MAX_PROPERTY, memoryMax, MEMORY);
+        this.cpuWeight = check(CPU_WEIGHT_PROPERTY, cpuWeight, NUMBER);
+        this.tasksMax = check(TASKS_MAX_PROPERTY, tasksMax, NUMBER);
+        this.cgroup = cgroup;
+        checkSize(MEMORY_MAX_PROPERTY, this.memoryMax);
+        checkSize(TASKS_MAX_PROPERTY, this.tasksMax);
+        if (this.cpuWeight != null && !this.cpuWeight.equals("infinity")
+                && (Long.parseLong(this.cpuWeight) < 1 || Long.parseLong(this.cpuWeight) > 10000)) {
+            throw new IllegalArgumentException(CPU_WEIGHT_PROPERTY + " must be between 1 and 10000");
+        }
+    }
+
+    /**
+     * @return the configured limits, or null if resource isolation is off
+     * @throws IllegalArgumentException if a limit is not valid
+     */
+    public static ResourceLimits fromProperties() {
+        String value = System.getProperty(MODE_PROPERTY, "off").toLowerCase(Locale.ROOT);
+        Mode mode;
+        switch (value) {
+            case "off":
+            case "false":
+            case "":
+                return null;
+            case "true":
+                mode = Mode.AUTO;
+                break;
+            default:
+                try {
+                    mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown " + MODE_PROPERTY + ": " + value
+                            + " (expected off, auto, systemd or cgroup)");
+                }
+        }
+        String cgroup = System.getProperty(CGROUP_PROPERTY);
+        return new ResourceLimits(mode,
+                System.getProperty(MEMORY_MAX_PROPERTY),
+                System.getProperty(CPU_WEIGHT_PROPERTY, DEFAULT_CPU_WEIGHT),
+                System.getProperty(TASKS_MAX_PROPERTY),
+                cgroup == null || cgroup.isBlank() ? null : Path.of(cgroup));
+    }
+
+    /**
+     * Wraps a shell command so it runs in a limited cgroup, falling back to
+     * the unwrapped command when neither mechanism can be used.
+     */
+    public String wrapShellCommand(String command) {
+        String name = "jbang-launch-" + ProcessHandle.current().pid() + "-" + sequence.incrementAndGet();
+
+        if (mode != Mode.CGROUP) {
+            if (systemdAvailable()) {
+                return systemdCommand(command, name);
+            }
+            if (mode == Mode.SYSTEMD) {
+                err.println("WARN: systemd user instance not available, running without resource limits");
+                return command;
+            }
+        }
+
+        if (cgroup == null) {
+            err.println("WARN: No systemd user instance and " + CGROUP_PROPERTY
+                    + " not set, running without resource limits");
+            return command;
+        }
+        try {
+            return cgroupCommand(command, createCgroup(name));
+        } catch (IOException e) {
+            err.println("WARN: Cannot use cgroup " + cgroup + ", running without resource limits: " + e.getMessage());
+            return command;
+        }
+    }
+
+    String systemdCommand(String command, String unit) {
+        List<String> args = new ArrayList<>(List.of("systemd-run", "--user", "--scope", "--quiet",
+                "--unit=" + unit, quote("--description=jbang:// launch")));
+        if (memoryMax != null) {
+            args.add("-p");
+            args.add("MemoryMax=" + memoryMax);
+        }
+        if (cpuWeight != null) {
+            args.add("-p");
+            args.add("CPUWeight=" + (cpuWeight.equals("infinity") ? "10000" : cpuWeight));
+        }
+        if (tasksMax != null) {
+            args.add("-p");
+            args.add("TasksMax=" + tasksMax);
+        }
+        return String.join(" ", args) + " -- bash -c " + quote(command + "; " + REPORT);
+    }
+
+    String cgroupCommand(String command, Path group) {
+        String procs = quote(group.resolve("cgroup.procs").toString());
+        // The inner shell moves itself into the cgroup, so everything it starts is limited too
+        String warning = quote("WARN: Cannot use cgroup " + group + ", running without resource limits");
+        return "bash -c " + quote("{ echo $$ > " + procs + " || echo " + warning + " 1>&2; }; "
+                + command + "; " + REPORT)
+                + "; rmdir " + quote(group.toString()) + " 2>/dev/null";
+    }
+
+    /**
+     * Creates a child cgroup of the delegated directory and writes the limits.
+     */
+    Path createCgroup(String name) throws IOException {
+        if (!Files.isWritable(cgroup.resolve("cgroup.procs"))) {
+            throw new IOException("not a writable cgroup v2 directory");
+        }
+        try {
+            // Usually enabled already by whoever delegated the directory
+            Files.writeString(cgroup.resolve("cgroup.subtree_control"), "+cpu +memory +pids");
+        } catch (IOException ignored) {
+        }
+        Path group = Files.createDirectory(cgroup.resolve(name));
+        try {
+            if (memoryMax != null) {
+                Files.writeString(group.resolve("memory.max"), cgroupValue(memoryMax));
+            }
+            if (cpuWeight != null) {
+                Files.writeString(group.resolve("cpu.weight"), cpuWeight.equals("infinity") ? "10000" : cpuWeight);
+            }
+            if (tasksMax != null) {
+                Files.writeString(group.resolve("pids.max"), cgroupValue(tasksMax));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(group);
+            throw e;
+        }
+        return group;
+    }
+
+    /**
+     * Converts a systemd style value, such as {@code 2G}, into bytes.
+     *
+     * @throws IllegalArgumentException if the value does not fit in a long
+     */
+    static String cgroupValue(String value) {
+        if (value.equals("infinity")) {
+            return "max";
+        }
+        var m = MEMORY.matcher(value);
+        if (!m.matches()) {
+            return value;
+        }
+        int shift = "KMGT".indexOf(m.group(2).isEmpty() ? "-" : m.group(2));
+        try {
+            return String.valueOf(Math.multiplyExact(Long.parseLong(m.group(1)), 1L << (10 * (shift + 1))));
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Value too large: " + value, e);
+        }
+    }
+
+    private static boolean systemdAvailable() {
+        if (Executables.find("systemd-run") == null) {
+            return false;
+        }
+        String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+        return runtimeDir != null && Files.exists(Path.of(runtimeDir, "systemd", "private"));
+    }
+
+    private static void checkSize(String property, String value) {
+        if (value != null) {
+            try {
+                cgroupValue(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid " + property + ": " + value + " is too large");
+            }
+        }
+    }
+
+    private static String check(String property, String value, Pattern pattern) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (!pattern.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid " + property + ": " + value);
+        }
+        return value;
+    }
+
+    private static String quote(String s) {
+        return "'" + s.replace("'", "'\"'\"'") + "'";
+    }
+}
@@ -0,0 +1,194 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.MouseInfo;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import javax.swing.JDialog;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+import javax.swing.UnsupportedLookAndFeelException;
+
+import com.formdev.flatlaf.FlatLightLaf;
+
+/**
+ * Confirmation dialogs using Swing with the FlatLaf look and feel.
+ */
+public class SwingConfirmation implements ConfirmationBackend {
+
+    private static boolean lookAndFeelInstalled;
+
+    @Override
+    public boolean confirm(String title, String message, Duration timeout) throws IOException {
+        return onEventThread(() -> {
+            Rectangle screenBounds = getActiveScreenBounds();
+
+            // Create a simple confirmation dialog
+            JOptionPane optionPane = new JOptionPane(
+                message,
+                JOptionPane.QUESTION_MESSAGE,
+                JOptionPane.YES_NO_OPTION
+            );
+
+            JDialog dialog = optionPane.createDialog(title);
+
+            // Position the dialog on the same screen as the mouse, but centered
+            int dialogX = screenBounds.x + (screenBounds.width / 2) - 150;
+            int dialogY = screenBounds.y + (screenBounds.height / 2) - 75;
+
+            dialog.setLocation(dialogX, dialogY);
+
+            // Show the dialog
+            showUntil(dialog, timeout);
+
+            // Get the result
+            Object selectedValue = optionPane.getValue();
+            return selectedValue != null && selectedValue.equals(JOptionPane.YES_OPTION);
+        });
+    }
+
+    @Override
+    public void showError(String title, String message, Duration timeout) throws IOException {
+        onEventThread(() -> {
+            Rectangle screenBounds = getActiveScreenBounds();
+
+            JOptionPane optionPane = new JOptionPane(
+                message,
+                JOptionPane.ERROR_MESSAGE,
+                JOptionPane.DEFAULT_OPTION
+            );
+
+            JDialog dialog = optionPane.createDialog(title);
+
+            // Position the dialog on the same screen as the mouse, but centered
+            int dialogX = screenBounds.x + (screenBounds.width / 2) - 200;
+            int dialogY = screenBounds.y + (screenBounds.height / 2) - 100;
+
+            dialog.setLocation(dialogX, dialogY);
+
+            // Show the dialog
+            showUntil(dialog, timeout);
+            return null;
+        });
+    }
+
+    /**
+     * Shows a modal dialog, closing it when the timeout passes.
+     *
+     * @throws DialogTimeoutException if the dialog was closed by the timeout
+     */
+    private static void showUntil(JDialog dialog, Duration timeout) throws DialogTimeoutException {
+        if (timeout == null) {
+            dialog.setVisible(true);
+            return;
+        }
+        boolean[] timedOut = new boolean[1];
+        Timer timer = new Timer((int) Math.min(Integer.MAX_VALUE, timeout.toMillis()), e -> {
+            timedOut[0] = true;
+            dialog.dispose();
+        });
+        timer.setRepeats(false);
+        timer.start();
+        try {
+            dialog.setVisible(true);
+        } finally {
+            timer.stop();
+        }
+        if (timedOut[0]) {
+            throw new DialogTimeoutException(timeout);
+        }
+    }
+
+    /**
+     * Runs a dialog on the event dispatch thread and waits for its result.
+     * Modal dialogs keep pumping events, so when already on that thread
+     * (e.g. from the macOS URI handler) the dialog is shown directly.
+     */
+    private static <T> T onEventThread(Callable<T> dialog) throws IOException {
+        setupLookAndFeel();
+        try {
+            if (SwingUtilities.isEventDispatchThread()) {
+                return dialog.call();
+            }
+            Object[] result = new Object[1];
+            Exception[] failure = new Exception[1];
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    result[0] = dialog.call();
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            @SuppressWarnings("unchecked")
+            T value = (T) result[0];
+            return value;
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while showing dialog", e);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Needed to position the dialog on the same screen as the mouse.
+     * Otherwise the dialog will be shown on the default screen which
+     * might not be the one the user is currently using.
+     * @return
+     */
+    private static Rectangle getActiveScreenBounds() {
+        // Get the current mouse location
+        Point mouseLocation = MouseInfo.getPointerInfo().getLocation();
+
+        // Find which screen contains the mouse cursor
+        GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
+        GraphicsDevice targetScreen = null;
+
+        for (GraphicsDevice screen : ge.getScreenDevices()) {
+            Rectangle bounds = screen.getDefaultConfiguration().getBounds();
+            if (bounds.contains(mouseLocation)) {
+                targetScreen = screen;
+                break;
+            }
+        }
+
+        // If no screen found, use the default screen
+        if (targetScreen == null) {
+            targetScreen = ge.getDefaultScreenDevice();
+        }
+
+        // Get the bounds of the target screen
+        Rectangle screenBounds = targetScreen.getDefaultConfiguration().getBounds();
+        return screenBounds;
+    }
+
+    private static synchronized void setupLookAndFeel() {
+        if (lookAndFeelInstalled) {
+            return;
+        }
+        lookAndFeelInstalled = true;
+        try {
+            UIManager.setLookAndFeel(new FlatLightLaf());
+        } catch (UnsupportedLookAndFeelException e) {
+            err.println("WARN: Failed to set look and feel");
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.jbang.launch;
+
+import static java.lang.System.err;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Gathers the commands of launches that happen close together, so they can
+ * be opened as tabs of a single terminal window.
+ * <p>
+ * Every jbang:// link is handled by its own JVM, so commands are handed over
+ * through a spool directory. Each launch drops its command there and then
+ * waits for the lock file. The first one to get the lock becomes the leader:
+ * it waits for the coalescing window, takes all spooled commands and opens
+ * them. Launches whose command was taken by a leader have nothing left to do.
+ * <p>
+ * Enabled by setting the {@code jbang.launch.tabs} system property to
+ * {@code true}; {@code jbang.launch.tabs.window} sets the window in
+ * milliseconds.
+ */
+public class TabCoalescer {
+
+    public static final String TABS_PROPERTY = "jbang.launch.tabs";
+    public static final String WINDOW_PROPERTY = "jbang.launch.tabs.window";
+
+    static final long DEFAULT_WINDOW_MILLIS = 300;
+    /** Commands older than this were left behind by a launch that died and are not opened. */
+    static final long STALE_MILLIS = 60_000;
+
+    private static final String SUFFIX = ".cmd";
+
+    private final Path dir;
+    private final long windowMillis;
+
+    TabCoalescer(Path dir, long windowMillis) {
+        this.dir = dir;
+        this.windowMillis = windowMillis;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(TABS_PROPERTY);
+    }
+
+    /**
+     * Creates a coalescer using a private spool directory of the current user.
+     */
+    public static TabCoalescer create() {
+        return new TabCoalescer(PrivateDirectory.of("tabs"), Long.getLong(WINDOW_PROPERTY, DEFAULT_WINDOW_MILLIS));
+    }
+
+    /**
+     * Spools a shell script and collects the scripts to open.
+     *
+     * @param script the script to run in a terminal tab
+     * @return the scripts of all launches in the window, in launch order, or an
+     *         empty list if another launch has already opened this script
+     * @throws IOException if the spool directory cannot be used safely
+     */
+    public List<String> coalesce(String script) throws IOException {
+        // Anyone able to write here could have commands opened in our terminal
+        PrivateDirectory.prepare(dir);
+        Path own = spool(script);
+
+        // Launches inside one JVM must not ask for the lock twice
+        synchronized (TabCoalescer.class) {
+            try (FileChannel channel = FileChannel.open(dir.resolve("leader.lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // Released when the channel is closed
+                channel.lock();
+                if (!Files.exists(own)) {
+                    return Collections.emptyList();
+                }
+                sleep(windowMillis);
+                return collect();
+            }
+        }
+    }
+
+    private Path spool(String script) throws IOException {
+        String name = String.format("%013d-%d", System.currentTimeMillis(), ProcessHandle.current().pid());
+        Path temp = Files.createTempFile(dir, name, ".tmp");
+        Files.writeString(temp, script, StandardCharsets.UTF_8);
+        Path target = dir.resolve(name + SUFFIX);
+        // Atomic so the leader never picks up a partially written command
+        return Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<String> collect() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+
+        long staleBefore = System.currentTimeMillis() - STALE_MILLIS;
+        List<String> scripts = new ArrayList<>();
+        for (Path file : files) {
+            boolean stale = Files.getLastModifiedTime(file).toMillis() < staleBefore;
+            if (stale) {
+                err.println("WARN: Discarding stale terminal command " + file.getFileName());
+            } else {
+                scripts.add(Files.readString(file, StandardCharsets.UTF_8));
+            }
+            Files.delete(file);
+        }
+        return scripts;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
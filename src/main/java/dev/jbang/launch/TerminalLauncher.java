@@ -13,13 +13,51 @@ public class TerminalLauncher {
         }
 
         // Security validation - hard fail on any suspicious patterns
-        
-        CommandSecurityValidator.validateCommand(commandArgs);
-        
+        try {
+            CommandSecurityValidator.validateCommand(commandArgs);
+        } catch (CommandSecurityValidator.ValidationException e) {
+            LaunchMetrics.validationRejected(e.getRule());
+            throw e;
+        }
+
         String os = System.getProperty("os.name").toLowerCase();
-        String command = commandArgs.stream()
-                .map(TerminalLauncher::escapeShellArg)
-                .collect(Collectors.joining(" "));
+        String command = null;
+        if (DirectLaunch.isEnabled()) {
+            if (os.contains("win")) {
+                System.err.println("WARN: Direct launch is not supported on Windows, using the jbang wrapper");
+            } else {
+                command = DirectLaunch.shellCommand(commandArgs);
+            }
+        }
+        boolean direct = command != null;
+        if (command == null) {
+            command = commandArgs.stream()
+                    .map(TerminalLauncher::escapeShellArg)
+                    .collect(Collectors.joining(" "));
+        }
+
+        ResourceLimits limits;
+        try {
+            limits = ResourceLimits.fromProperties();
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        if (limits != null) {
+            if ((os.contains("nux") || os.contains("nix")) && !isWSL()) {
+                command = limits.wrapShellCommand(command);
+            } else {
+                System.err.println("WARN: Resource limits are only supported on Linux");
+            }
+        }
+
+        LaunchProbe probe = LaunchProbe.current();
+        if (probe != null) {
+            if (os.contains("win") && !isWSL()) {
+                System.err.println("WARN: Launch probe is not supported on Windows");
+            } else {
+                command = probe.wrapShellCommand(command, os.contains("mac"), direct);
+            }
+        }
 
         if (isWSL()) {
             launchInWSL(command);
@@ -60,22 +98,88 @@ public class TerminalLauncher {
     }
 
     private static void launchOnLinux(String command) throws IOException {
-        List<String> preferredTerms = detectPreferredLinuxTerminals();
+        String term = detectPreferredLinuxTerminals().stream()
+                .filter(TerminalLauncher::isCommandAvailable)
+                .findFirst()
+                .orElseThrow(() -> new IOException("No known terminal emulator found on Linux."));
+
+        List<String> scripts = List.of(command + "; exec bash");
+        if (TabCoalescer.isEnabled()) {
+            try {
+                scripts = TabCoalescer.create().coalesce(scripts.get(0));
+            } catch (IOException e) {
+                System.err.println("WARN: Opening a separate window, tabbed launch failed: " + e.getMessage());
+            }
+            if (scripts.isEmpty()) {
+                System.err.println("INFO: Command opened as a tab by a concurrent launch");
+                return;
+            }
+        }
+
+        for (List<String> cmd : linuxTerminalCommands(term, scripts)) {
+            new ProcessBuilder(cmd).start();
+        }
+    }
+
+    /**
+     * Builds the terminal invocations that open the scripts, as tabs of one
+     * window where the emulator allows it.
+     * <p>
+     * gnome-terminal, mate-terminal and xfce4-terminal take all tabs in a single
+     * invocation. konsole and tilix add each further command to the window of
+     * the first one, using {@code --new-tab} and a new session respectively.
+     * Emulators without tabs, such as xterm, get a window per command.
+     */
+    static List<List<String>> linuxTerminalCommands(String term, List<String> scripts) {
+        List<List<String>> commands = new ArrayList<>();
+        if (scripts.size() == 1) {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(term);
+            if (!term.contains("xterm")) {
+                cmd.add("--");
+            }
+            cmd.addAll(List.of("bash", "-c", scripts.get(0)));
+            commands.add(cmd);
+            return commands;
+        }
 
-        for (String term : preferredTerms) {
-            if (isCommandAvailable(term)) {
+        switch (term) {
+            case "gnome-terminal":
+            case "mate-terminal":
+            case "xfce4-terminal": {
                 List<String> cmd = new ArrayList<>();
                 cmd.add(term);
-                if (!term.contains("xterm")) {
-                    cmd.add("--");
+                for (int i = 0; i < scripts.size(); i++) {
+                    cmd.add(i == 0 ? "--window" : "--tab");
+                    cmd.add("-e");
+                    cmd.add("bash -c " + quoteShellArg(scripts.get(i)));
                 }
-                cmd.addAll(List.of("bash", "-c", command + "; exec bash"));
-                new ProcessBuilder(cmd).start();
-                return;
+                commands.add(cmd);
+                break;
             }
+            case "konsole":
+                for (String script : scripts) {
+                    commands.add(List.of("konsole", "--new-tab", "-e", "bash", "-c", script));
+                }
+                break;
+            case "tilix":
+                for (int i = 0; i < scripts.size(); i++) {
+                    List<String> cmd = new ArrayList<>();
+                    cmd.add("tilix");
+                    if (i > 0) {
+                        cmd.add("--action=app-new-session");
+                    }
+                    cmd.add("-e");
+                    cmd.add("bash -c " + quoteShellArg(scripts.get(i)));
+                    commands.add(cmd);
+                }
+                break;
+            default:
+                for (String script : scripts) {
+                    commands.addAll(linuxTerminalCommands(term, List.of(script)));
+                }
         }
-
-        throw new IOException("No known terminal emulator found on Linux.");
+        return commands;
     }
 
     // endregion
@@ -131,5 +235,10 @@ public class TerminalLauncher {
         return arg.replace("'", "'\"'\"'");
     }
 
+    /** Quotes a whole string as one word, for terminals that split their {@code -e} argument like a shell. */
+    private static String quoteShellArg(String arg) {
+        return "'" + escapeShellArg(arg) + "'";
+    }
+
     // endregion
 }
\ No newline at end of file
@@ -91,8 +91,9 @@ public class UrlConverter {
             // Use URI constructor for RFC 3986 compliant encoding
             URI uri = new URI("http", "example.com", "/" + s, null);
             String encoded = uri.getRawPath();
-            // Remove the leading slash that URI adds
-            return encoded.substring(1);
+            // Remove the leading slash that URI adds, and encode slashes
+            // within the argument so it stays a single path segment
+            return encoded.substring(1).replace("/", "%2F");
         } catch (URISyntaxException e) {
             throw new IllegalStateException("Failed to encode string: " + s, e);
         }
@@ -0,0 +1,115 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AuditLog Tests")
+class AuditLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("format should write one JSON object per record")
+    void format_JsonLine() {
+        // When
+        String line = AuditLog.format(Instant.parse("2025-01-02T03:04:05Z"), "received",
+                "jbang:///run/a%22b", List.of("jbang", "run", "a\"b\\c\n"), null);
+
+        // Then
+        assertThat(line).isEqualTo("{\"ts\":\"2025-01-02T03:04:05Z\",\"event\":\"received\","
+                + "\"uri\":\"jbang:///run/a%22b\",\"argv\":[\"jbang\",\"run\",\"a\\\"b\\\\c\\n\"]}");
+    }
+
+    @Test
+    @DisplayName("close should flush all queued records")
+    void close_FlushesRecords() throws Exception {
+        // Given
+        Path file = dir.resolve("logs/audit.jsonl");
+        AuditLog log = new AuditLog(file, 100, AuditLog.DEFAULT_MAX_BYTES);
+        log.start();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertThat(log.offer("{\"n\":" + i + "}")).isTrue();
+        }
+        log.close();
+
+        // Then
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(50).startsWith("{\"n\":0}").endsWith("{\"n\":49}");
+    }
+
+    @Test
+    @DisplayName("offer should drop and count records when the queue is full")
+    void offer_DropsWhenFull() throws Exception {
+        // Given a writer that has not started draining yet
+        Path file = dir.resolve("audit.jsonl");
+        AuditLog log = new AuditLog(file, 3, AuditLog.DEFAULT_MAX_BYTES);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            log.offer("{\"n\":" + i + "}");
+        }
+        log.start();
+        log.close();
+
+        // Then
+        assertThat(log.getDropped()).isEqualTo(2);
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(4).startsWith("{\"n\":0}", "{\"n\":1}", "{\"n\":2}");
+        assertThat(lines.get(3)).contains("\"event\":\"dropped\"").contains("\"detail\":\"2\"");
+    }
+
+    @Test
+    @DisplayName("the log should rotate when it exceeds its maximum size")
+    void write_Rotates() throws Exception {
+        // Given
+        Path file = dir.resolve("audit.jsonl");
+        AuditLog log = new AuditLog(file, 1000, 100);
+
+        // When
+        for (int i = 0; i < 40; i++) {
+            log.offer("{\"record\":\"" + i + "\"}");
+        }
+        log.start();
+        log.close();
+
+        // Then the 40 records (~700 bytes) went into a single batch, rotated afterwards
+        assertThat(dir.resolve("audit.jsonl.1")).exists();
+        assertThat(Files.readAllLines(dir.resolve("audit.jsonl.1"))).hasSize(40);
+        assertThat(file).exists().isEmptyFile();
+    }
+
+    @Test
+    @DisplayName("a log should not rotate again a file another one just rotated")
+    void write_RotatedByOther() throws Exception {
+        // Given two launchers appending to the same file
+        Path file = dir.resolve("audit.jsonl");
+        AuditLog other = new AuditLog(file, 1000, 100);
+        other.start();
+        AuditLog log = new AuditLog(file, 1000, 100);
+        for (int i = 0; i < 40; i++) {
+            log.offer("{\"record\":\"" + i + "\"}");
+        }
+        log.start();
+        log.close();
+
+        // When the other one writes to the file it still has open, now rotated
+        other.offer("{\"record\":\"other\"}");
+        other.close();
+
+        // Then
+        assertThat(Files.readAllLines(dir.resolve("audit.jsonl.1"))).hasSize(41);
+        assertThat(dir.resolve("audit.jsonl.2")).doesNotExist();
+        assertThat(file).exists().isEmptyFile();
+    }
+}
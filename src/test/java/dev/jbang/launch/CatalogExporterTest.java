@@ -0,0 +1,171 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CatalogExporter Tests")
+class CatalogExporterTest {
+
+    private static final String CATALOG = "{\n"
+            + "  \"catalogs\": {\n"
+            + "    \"demo\": { \"catalog-ref\": \"https://github.com/jbangdev/jbang-catalog\", \"description\": \"Demos\" }\n"
+            + "  },\n"
+            + "  \"aliases\": {\n"
+            + "    \"hello\": {\n"
+            + "      \"script-ref\": \"hello.java\",\n"
+            + "      \"description\": \"Says \\\"hello\\\" | \\u00e9\",\n"
+            + "      \"arguments\": [\"a\", {\"nested\": [1, 2.5e3, true, null]}],\n"
+            + "      \"java-options\": []\n"
+            + "    },\n"
+            + "    \"hello world\": { \"script-ref\": \"hw.java\" }\n"
+            + "  },\n"
+            + "  \"templates\": {\n"
+            + "    \"cli\": { \"file-refs\": { \"{basename}.java\": \"templates/cli.java.qute\" }, \"description\": \"CLI <app>\" }\n"
+            + "  },\n"
+            + "  \"base-ref\": \"https://example.com\"\n"
+            + "}\n";
+
+    @Test
+    @DisplayName("export should write a link per alias, template and catalog")
+    void export_ListFormat() throws Exception {
+        // When
+        String output = export(new StringReader(CATALOG), CatalogExporter.Format.LIST, null);
+
+        // Then
+        assertThat(output.lines()).containsExactly(
+                "jbang:///alias/list/https:%2F%2Fgithub.com%2Fjbangdev%2Fjbang-catalog",
+                "jbang:///run/hello",
+                "jbang:///run/hello%20world",
+                "jbang:///init/--template=cli/cli.java");
+    }
+
+    @Test
+    @DisplayName("export should reference entries of a named catalog")
+    void export_CatalogName() throws Exception {
+        // When
+        String output = export(new StringReader(CATALOG), CatalogExporter.Format.LIST, "jbangdev");
+
+        // Then
+        assertThat(output.lines()).contains("jbang:///run/hello@jbangdev", "jbang:///init/--template=cli@jbangdev/cli.java");
+    }
+
+    @Test
+    @DisplayName("export should escape Markdown table cells")
+    void export_MarkdownFormat() throws Exception {
+        // When
+        String output = export(new StringReader(CATALOG), CatalogExporter.Format.MARKDOWN, null);
+
+        // Then
+        assertThat(output.lines()).startsWith("| Type | Name | Description | Link |", "|------|------|-------------|------|")
+                .contains("| alias | hello | Says \"hello\" \\| é | [jbang run hello](jbang:///run/hello) |");
+    }
+
+    @Test
+    @DisplayName("export should escape HTML")
+    void export_HtmlFormat() throws Exception {
+        // When
+        String output = export(new StringReader(CATALOG), CatalogExporter.Format.HTML, null);
+
+        // Then
+        assertThat(output.lines()).first().isEqualTo("<table>");
+        assertThat(output.lines()).last().isEqualTo("</table>");
+        assertThat(output).contains("<td>CLI &lt;app&gt;</td>")
+                .contains("<a href=\"jbang:///init/--template=cli/cli.java\">jbang init --template=cli cli.java</a>");
+    }
+
+    @Test
+    @DisplayName("export should stream large catalogs")
+    void export_LargeCatalog() throws Exception {
+        // Given
+        int entries = 50_000;
+        Reader catalog = new GeneratedCatalog(entries);
+
+        // When
+        var counter = new CountingStream();
+        long count = new CatalogExporter(new PrintStream(counter), CatalogExporter.Format.LIST, null).export(catalog);
+
+        // Then
+        assertThat(count).isEqualTo(entries);
+        assertThat(counter.lines).isEqualTo(entries);
+    }
+
+    @Test
+    @DisplayName("export should report malformed catalogs")
+    void export_Malformed() {
+        assertThatThrownBy(() -> export(new StringReader("{\"aliases\": {\"x\": \"oops\"}}"), CatalogExporter.Format.LIST, null))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Expected '{' at line 1");
+    }
+
+    @Test
+    @DisplayName("Format.parse should reject unknown formats")
+    void format_ParseUnknown() {
+        assertThat(CatalogExporter.Format.parse("Markdown")).isEqualTo(CatalogExporter.Format.MARKDOWN);
+        assertThatThrownBy(() -> CatalogExporter.Format.parse("pdf"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown format: pdf (expected list, markdown or html)");
+    }
+
+    private static String export(Reader catalog, CatalogExporter.Format format, String catalogName) throws IOException {
+        var buffer = new ByteArrayOutputStream();
+        new CatalogExporter(new PrintStream(buffer, true, StandardCharsets.UTF_8), format, catalogName).export(catalog);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Produces a catalog with many aliases on the fly, never holding it in memory.
+     */
+    private static final class GeneratedCatalog extends Reader {
+        private final int entries;
+        private int next;
+        private String chunk = "{\"aliases\": {";
+        private int pos;
+
+        GeneratedCatalog(int entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (pos == chunk.length()) {
+                if (next > entries) {
+                    return -1;
+                }
+                chunk = next == entries
+                        ? "}}"
+                        : (next > 0 ? "," : "") + "\"alias" + next + "\": {\"script-ref\": \"s" + next + ".java\"}";
+                next++;
+                pos = 0;
+            }
+            int n = Math.min(len, chunk.length() - pos);
+            chunk.getChars(pos, pos + n, cbuf, off);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class CountingStream extends java.io.OutputStream {
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisabledOnOs(OS.WINDOWS)
+@DisplayName("ConfirmationBackend Tests")
+class ConfirmationBackendTest {
+
+    @TempDir
+    Path bin;
+
+    @Test
+    @DisplayName("select should prefer zenity on Linux")
+    void select_PrefersZenity() throws Exception {
+        // Given
+        stub("zenity", 0);
+        stub("kdialog", 0);
+
+        // When
+        ConfirmationBackend backend = ConfirmationBackend.select("auto", "Linux", "GNOME", bin.toString());
+
+        // Then
+        assertThat(backend).isInstanceOf(NativeDialogConfirmation.class);
+        assertThat(((NativeDialogConfirmation) backend).getTool()).isEqualTo(bin.resolve("zenity"));
+    }
+
+    @Test
+    @DisplayName("select should prefer kdialog on KDE")
+    void select_PrefersKdialogOnKde() throws Exception {
+        // Given
+        stub("zenity", 0);
+        stub("kdialog", 0);
+
+        // When
+        ConfirmationBackend backend = ConfirmationBackend.select("auto", "Linux", "KDE", bin.toString());
+
+        // Then
+        assertThat(((NativeDialogConfirmation) backend).getTool()).isEqualTo(bin.resolve("kdialog"));
+    }
+
+    @Test
+    @DisplayName("select should fall back to Swing")
+    void select_FallsBackToSwing() throws Exception {
+        // Given
+        stub("zenity", 0);
+
+        // When/Then
+        assertThat(ConfirmationBackend.select("auto", "Linux", null, bin.resolve("empty").toString()))
+                .isInstanceOf(SwingConfirmation.class);
+        assertThat(ConfirmationBackend.select("auto", "Mac OS X", null, bin.toString()))
+                .isInstanceOf(SwingConfirmation.class);
+        assertThat(ConfirmationBackend.select("swing", "Linux", null, bin.toString()))
+                .isInstanceOf(SwingConfirmation.class);
+        assertThat(ConfirmationBackend.select("kdialog", "Linux", null, bin.toString()))
+                .isInstanceOf(SwingConfirmation.class);
+    }
+
+    @Test
+    @DisplayName("select should ignore files that are not executable")
+    void select_IgnoresNonExecutable() throws Exception {
+        // Given
+        Files.writeString(bin.resolve("zenity"), "#!/bin/sh\n");
+
+        // When/Then
+        assertThat(ConfirmationBackend.select("auto", "Linux", null, bin.toString()))
+                .isInstanceOf(SwingConfirmation.class);
+    }
+
+    @Test
+    @DisplayName("zenity exit codes should map to yes and no")
+    void confirm_Zenity() throws Exception {
+        assertThat(new NativeDialogConfirmation(stub("zenity", 0)).confirm("Title", "Run?", null)).isTrue();
+        assertThat(new NativeDialogConfirmation(stub("zenity", 1)).confirm("Title", "Run?", null)).isFalse();
+        assertThatThrownBy(() -> new NativeDialogConfirmation(stub("zenity", 2)).confirm("Title", "Run?", null))
+                .isInstanceOf(IOException.class)
+                .hasMessage("zenity failed with exit code 2");
+    }
+
+    @Test
+    @DisplayName("zenity failing to open the display should fall back instead of declining")
+    void confirm_ZenityWithoutDisplay() throws Exception {
+        // Given
+        Path zenity = bin.resolve("zenity");
+        Files.writeString(zenity, "#!/bin/sh\n"
+                + "echo \"(zenity:42): Gtk-WARNING **: 10:00:00.000: cannot open display: :99\" >&2\nexit 1\n");
+        Files.setPosixFilePermissions(zenity, PosixFilePermissions.fromString("rwxr-xr-x"));
+        Path declining = bin.resolve("declining");
+        Files.createDirectories(declining);
+        Files.writeString(declining.resolve("zenity"), "#!/bin/sh\n"
+                + "echo \"Gtk-Message: GtkDialog mapped without a transient parent\" >&2\nexit 1\n");
+        Files.setPosixFilePermissions(declining.resolve("zenity"), PosixFilePermissions.fromString("rwxr-xr-x"));
+        List<String> fallbackCalls = new ArrayList<>();
+        ConfirmationBackend fallback = new ConfirmationBackend() {
+            @Override
+            public boolean confirm(String title, String message, Duration timeout) {
+                fallbackCalls.add("confirm " + title);
+                return true;
+            }
+
+            @Override
+            public void showError(String title, String message, Duration timeout) {
+                fallbackCalls.add("error " + title);
+            }
+        };
+
+        // When
+        boolean approved = new NativeDialogConfirmation(zenity, () -> fallback).confirm("Title", "Run?", null);
+        new NativeDialogConfirmation(zenity, () -> fallback).showError("Oops", "Failed", null);
+        boolean declined = new NativeDialogConfirmation(declining.resolve("zenity"), () -> fallback)
+                .confirm("Other", "Run?", null);
+
+        // Then
+        assertThat(approved).isTrue();
+        assertThat(declined).isFalse();
+        assertThat(fallbackCalls).containsExactly("confirm Title", "error Oops");
+    }
+
+    @Test
+    @DisplayName("kdialog exit codes should map to yes and no")
+    void confirm_Kdialog() throws Exception {
+        assertThat(new NativeDialogConfirmation(stub("kdialog", 0)).confirm("Title", "Run?", null)).isTrue();
+        assertThat(new NativeDialogConfirmation(stub("kdialog", 1)).confirm("Title", "Run?", null)).isFalse();
+        assertThat(new NativeDialogConfirmation(stub("kdialog", 2)).confirm("Title", "Run?", null)).isFalse();
+        assertThatThrownBy(() -> new NativeDialogConfirmation(stub("kdialog", 254)).confirm("Title", "Run?", null))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("confirm should pass the message as plain text")
+    void confirm_PassesArguments() throws Exception {
+        // Given
+        Path zenity = bin.resolve("zenity");
+        Files.writeString(zenity, "#!/bin/sh\nfor a in \"$@\"; do echo \"$a\"; done > \"$0.args\"\n");
+        Files.setPosixFilePermissions(zenity, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        // When
+        new NativeDialogConfirmation(zenity).confirm("jbang:// URL Handler", "Execute <b>jbang</b> & run?", null);
+
+        // Then
+        assertThat(Files.readAllLines(bin.resolve("zenity.args"))).containsExactly(
+                "--question", "--title=jbang:// URL Handler", "--text=Execute <b>jbang</b> & run?",
+                "--ok-label=Yes", "--cancel-label=No", "--no-markup", "--no-wrap");
+    }
+
+    @Test
+    @DisplayName("kdialog should be asked with its own options")
+    void commands_Kdialog() {
+        var backend = new NativeDialogConfirmation(Path.of("/usr/bin/kdialog"));
+
+        assertThat(backend.questionCommand("T", "M", null)).isEqualTo(List.of(
+                "/usr/bin/kdialog", "--title", "T", "--yesno", "M", "--yes-label", "Yes", "--no-label", "No"));
+        assertThat(backend.errorCommand("T", "M", null)).isEqualTo(List.of(
+                "/usr/bin/kdialog", "--title", "T", "--error", "M"));
+    }
+
+    @Test
+    @DisplayName("zenity should close the dialog itself when the timeout passes")
+    void confirm_ZenityTimeout() throws Exception {
+        // Given
+        var backend = new NativeDialogConfirmation(stub("zenity", NativeDialogConfirmation.ZENITY_TIMEOUT_EXIT_CODE));
+
+        // When/Then
+        assertThat(backend.questionCommand("T", "M", Duration.ofMillis(1500))).endsWith("--timeout=2");
+        assertThat(backend.errorCommand("T", "M", Duration.ofMillis(200))).endsWith("--timeout=1");
+        assertThatThrownBy(() -> backend.confirm("Title", "Run?", Duration.ofSeconds(1)))
+                .isInstanceOf(ConfirmationBackend.DialogTimeoutException.class)
+                .hasMessage("Dialog not answered within 1s");
+    }
+
+    @Test
+    @DisplayName("kdialog should be killed when the timeout passes")
+    void confirm_KdialogTimeout() throws Exception {
+        // Given
+        Path kdialog = bin.resolve("kdialog");
+        Files.writeString(kdialog, "#!/bin/sh\nexec sleep 30\n");
+        Files.setPosixFilePermissions(kdialog, PosixFilePermissions.fromString("rwxr-xr-x"));
+        var backend = new NativeDialogConfirmation(kdialog);
+
+        // When
+        long start = System.nanoTime();
+
+        // Then
+        assertThatThrownBy(() -> backend.confirm("Title", "Run?", Duration.ofMillis(300)))
+                .isInstanceOf(ConfirmationBackend.DialogTimeoutException.class)
+                .hasMessage("Dialog not answered within 0.3s");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(backend.questionCommand("T", "M", Duration.ofSeconds(1))).doesNotContain("--timeout=1");
+    }
+
+    private Path stub(String name, int exitCode) throws IOException {
+        Path file = bin.resolve(name);
+        Files.writeString(file, "#!/bin/sh\nexit " + exitCode + "\n");
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return file;
+    }
+}
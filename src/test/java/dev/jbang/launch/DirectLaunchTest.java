@@ -0,0 +1,226 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+@DisplayName("DirectLaunch Tests")
+class DirectLaunchTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("the jar next to the wrapper and a JDK on the PATH should be used")
+    void shellCommand_WrapperAndPath() throws Exception {
+        // Given
+        Path bin = wrapper(root.resolve("jbang/bin"));
+        Path jdk = jdk(root.resolve("jdk"));
+
+        // When
+        String output = run(env(bin, jdk.resolve("bin")), false, "run", "hello.java");
+
+        // Then
+        assertThat(output).isEqualTo("java " + jdk.resolve("bin/java") + " home= cp=" + bin.resolve("jbang.jar")
+                + " cmd=" + bin.resolve("jbang") + " notty=true run hello.java");
+    }
+
+    @Test
+    @DisplayName("a JDK in the shell's JAVA_HOME should take precedence")
+    void shellCommand_JavaHome() throws Exception {
+        // Given
+        Path bin = wrapper(root.resolve("jbang/bin"));
+        Path jdk = jdk(root.resolve("jdk"));
+        Path javaHome = jdk(root.resolve("java-home"));
+        Map<String, String> env = env(bin, jdk.resolve("bin"));
+        env.put("JAVA_HOME", javaHome.toString());
+
+        // When
+        String output = run(env, false, "version");
+
+        // Then
+        assertThat(output).startsWith("java " + javaHome.resolve("bin/java") + " home=" + javaHome + " ");
+    }
+
+    @Test
+    @DisplayName("the jar next to the target of a linked wrapper should be used")
+    void shellCommand_LinkedWrapper() throws Exception {
+        // Given
+        Path bin = wrapper(root.resolve("jbang/bin"));
+        Path jdk = jdk(root.resolve("jdk"));
+        Path links = Files.createDirectories(root.resolve("links"));
+        Files.createSymbolicLink(links.resolve("jbang"), bin.resolve("jbang"));
+
+        // When
+        String output = run(env(links, jdk.resolve("bin"), Path.of("/usr/bin"), Path.of("/bin")), false, "version");
+
+        // Then
+        assertThat(output).contains(" cp=" + bin.resolve("jbang.jar") + " ");
+    }
+
+    @Test
+    @DisplayName("the installed jbang and the JDK it downloaded should be used")
+    void shellCommand_Installed() throws Exception {
+        // Given
+        Path home = root.resolve("home");
+        Path bin = wrapper(home.resolve(".jbang/bin"));
+        Path jdk = jdk(home.resolve(".jbang/cache/jdks/17"));
+
+        // When
+        String output = run(env(), false, "version");
+
+        // Then
+        assertThat(output).isEqualTo("java " + jdk.resolve("bin/java") + " home=" + jdk + " cp="
+                + bin.resolve("jbang.jar") + " cmd=" + bin.resolve("jbang") + " notty=true version");
+    }
+
+    @Test
+    @DisplayName("on macOS a javac on the PATH should only count if java_home finds a JDK")
+    void shellCommand_MacStubJavac() throws Exception {
+        // Given: no /usr/libexec/java_home here, as on a Mac without a JDK
+        Path home = root.resolve("home");
+        Path bin = wrapper(root.resolve("jbang/bin"));
+        Path jdk = jdk(root.resolve("jdk"));
+        Path currentJdk = jdk(home.resolve(".jbang/currentjdk"));
+
+        // When
+        String output = run(env(bin, jdk.resolve("bin")), true, "version");
+
+        // Then
+        assertThat(output).startsWith("java " + currentJdk.resolve("bin/java") + " home=" + currentJdk + " ");
+    }
+
+    @Test
+    @DisplayName("the wrapper should be run when it has to download or update something")
+    void shellCommand_NeedsWrapper() throws Exception {
+        // Given
+        Path home = root.resolve("home");
+        Path bin = wrapper(home.resolve(".jbang/bin"));
+
+        // When/Then: no JDK yet
+        assertThat(run(env(), false, "run", "it's")).isEqualTo("wrapper run it's");
+
+        // When/Then: an update waiting to be swapped in
+        jdk(home.resolve(".jbang/currentjdk"));
+        assertThat(run(env(), false, "version")).startsWith("java ");
+        Files.createFile(bin.resolve("jbang.jar.new"));
+        assertThat(run(env(), false, "version")).isEqualTo("wrapper version");
+    }
+
+    @Test
+    @DisplayName("JAVA_HOME should only be changed for jbang, not for the terminal's shell")
+    void shellCommand_KeepsShellJavaHome() throws Exception {
+        // Given
+        Path home = root.resolve("home");
+        wrapper(home.resolve(".jbang/bin"));
+        jdk(home.resolve(".jbang/currentjdk"));
+        Map<String, String> env = env();
+        env.put("JAVA_HOME", "/not/a/jdk");
+
+        // When
+        Process shell = shell(env, DirectLaunch.shellCommand(List.of("version"), false) + "; echo \"$JAVA_HOME\"");
+
+        // Then
+        assertThat(output(shell)).endsWith("\n/not/a/jdk");
+    }
+
+    @Test
+    @DisplayName("the command jbang asks for with exit code 255 should be executed")
+    void shellCommand_Execute() throws Exception {
+        // Given: a java that behaves like dev.jbang.Main for "run"
+        Path home = root.resolve("home");
+        wrapper(home.resolve(".jbang/bin"));
+        Path jdk = jdk(home.resolve(".jbang/currentjdk"));
+        executable(jdk.resolve("bin/java"), "#!/bin/sh\necho \"echo app ran with $5 in \\$JAVA_HOME\"\nexit 255\n");
+
+        // When: with a PATH to find echo on
+        Process shell = shell(env(Path.of("/usr/bin"), Path.of("/bin")),
+                DirectLaunch.shellCommand(List.of("run", "hello.java"), false));
+
+        // Then
+        assertThat(output(shell)).isEqualTo("app ran with hello.java in " + jdk);
+        assertThat(shell.waitFor()).isZero();
+    }
+
+    @Test
+    @DisplayName("other output should be printed and the exit code kept")
+    void shellCommand_Output() throws Exception {
+        // Given
+        Path home = root.resolve("home");
+        wrapper(home.resolve(".jbang/bin"));
+        Path jdk = jdk(home.resolve(".jbang/currentjdk"));
+        executable(jdk.resolve("bin/java"), "#!/bin/sh\necho \"jbang $4 $5\"\nexit 3\n");
+
+        // When
+        Process shell = shell(env(), DirectLaunch.shellCommand(List.of("version", "it's"), false));
+
+        // Then
+        assertThat(output(shell)).isEqualTo("jbang version it's");
+        assertThat(shell.waitFor()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("only jbang commands should be launched directly")
+    void shellCommand_OnlyJbang() {
+        assertThat(DirectLaunch.shellCommand(List.of("java", "-version"))).isNull();
+    }
+
+    private String run(Map<String, String> env, boolean mac, String... jbangArgs) throws IOException {
+        return output(shell(env, DirectLaunch.shellCommand(List.of(jbangArgs), mac)));
+    }
+
+    private Process shell(Map<String, String> env, String command) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder("bash", "-c", command).redirectInput(ProcessBuilder.Redirect.PIPE);
+        builder.environment().clear();
+        builder.environment().putAll(env);
+        Process process = builder.start();
+        process.getOutputStream().close();
+        return process;
+    }
+
+    private static String output(Process process) throws IOException {
+        return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+    }
+
+    private Map<String, String> env(Path... path) {
+        Map<String, String> env = new HashMap<>();
+        env.put("HOME", root.resolve("home").toString());
+        env.put("PATH", String.join(":", java.util.Arrays.stream(path).map(Path::toString).toList()));
+        return env;
+    }
+
+    private Path wrapper(Path bin) throws IOException {
+        Files.createDirectories(bin);
+        executable(bin.resolve("jbang"), "#!/bin/sh\necho wrapper \"$@\"\n");
+        Files.createFile(bin.resolve("jbang.jar"));
+        return bin;
+    }
+
+    private Path jdk(Path home) throws IOException {
+        Files.createDirectories(home.resolve("bin"));
+        executable(home.resolve("bin/java"), "#!/bin/sh\necho \"java $0 home=$JAVA_HOME cp=$2 cmd=$JBANG_LAUNCH_CMD\"\\\n"
+                + "  \"notty=$JBANG_STDIN_NOTTY\" \"$4\" \"$5\"\n");
+        executable(home.resolve("bin/javac"), "#!/bin/sh\n");
+        return home;
+    }
+
+    private static Path executable(Path file, String content) throws IOException {
+        Files.writeString(file, content);
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-xr-x"));
+        return file;
+    }
+}
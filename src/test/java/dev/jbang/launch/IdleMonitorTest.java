@@ -0,0 +1,72 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IdleMonitor Tests")
+class IdleMonitorTest {
+
+    @Test
+    @DisplayName("awaitIdleTimeout should return once idle for the timeout")
+    void awaitIdleTimeout_Returns() throws Exception {
+        // Given
+        IdleMonitor.uriStarted();
+        IdleMonitor.uriFinished();
+        long start = System.nanoTime();
+
+        // When
+        IdleMonitor.awaitIdleTimeout(Duration.ofMillis(200), Duration.ofMillis(50));
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start))
+                .isGreaterThanOrEqualTo(Duration.ofMillis(200))
+                .isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("a URI being handled should keep the handler alive")
+    void awaitIdleTimeout_NotWhileActive() throws Exception {
+        // Given
+        IdleMonitor.uriStarted();
+        var waiting = CompletableFuture.runAsync(() -> {
+            try {
+                IdleMonitor.awaitIdleTimeout(Duration.ofMillis(100), null);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        // When
+        Thread.sleep(400);
+        boolean doneWhileActive = waiting.isDone();
+        IdleMonitor.uriFinished();
+
+        // Then
+        assertThat(doneWhileActive).isFalse();
+        waiting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("durations should accept decimals and treat zero as never")
+    void durations() {
+        assertThat(Durations.parse("1.5", ChronoUnit.SECONDS)).isEqualTo(Duration.ofMillis(1500));
+        assertThat(Durations.parse("0.5", ChronoUnit.MINUTES)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(Durations.format(Duration.ofMillis(1500))).isEqualTo("1.5s");
+        assertThat(Durations.format(Duration.ofMinutes(2))).isEqualTo("120s");
+
+        System.setProperty("jbang.launch.test.timeout", "0");
+        try {
+            assertThat(Durations.fromProperty("jbang.launch.test.timeout", ChronoUnit.SECONDS, Duration.ofSeconds(1)))
+                    .isNull();
+        } finally {
+            System.clearProperty("jbang.launch.test.timeout");
+        }
+    }
+}
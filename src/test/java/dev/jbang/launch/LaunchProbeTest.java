@@ -0,0 +1,121 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LaunchProbe Tests")
+class LaunchProbeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("the wrapped shell command should record the shell stages around the rc file and jbang")
+    void wrapShellCommand_RecordsStages() throws Exception {
+        // Given
+        Path file = dir.resolve("it's a probe.log");
+        Files.createFile(file);
+        Files.writeString(dir.resolve(".bashrc"), "sleep 0.1\n");
+        LaunchProbe probe = new LaunchProbe(file);
+
+        // When
+        String command = probe.wrapShellCommand("\"$" + LaunchProbe.MARK_VARIABLE + "\" jbang-started", false, true);
+        ProcessBuilder builder = new ProcessBuilder("bash", "-c", command)
+                .redirectInput(ProcessBuilder.Redirect.from(new File("/dev/null")));
+        builder.environment().put("HOME", dir.toString());
+        Process shell = builder.start();
+
+        // Then
+        assertThat(shell.waitFor()).isZero();
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(0)).matches("shell-started \\d{16}");
+        assertThat(lines.get(1)).matches("shell-ready \\d{16}");
+        assertThat(lines.get(2)).matches("wrapper-started \\d{16}");
+        assertThat(lines.get(3)).matches("jbang-started \\d{16}");
+        assertThat(lines.get(4)).matches("jbang-exited \\d{16}");
+        long rcMicros = Long.parseLong(lines.get(1).split(" ")[1]) - Long.parseLong(lines.get(0).split(" ")[1]);
+        assertThat(rcMicros).isGreaterThanOrEqualTo(100_000);
+    }
+
+    @Test
+    @DisplayName("without a direct launch the report should wait for the wrapper and say jbang was not timed")
+    void awaitAndReport_Wrapper() throws Exception {
+        // Given
+        Path file = dir.resolve("probe.log");
+        LaunchProbe probe = new LaunchProbe(file);
+        probe.wrapShellCommand("jbang run hello.java", false, false);
+        Files.writeString(file, "shell-ready 1000005000\nwrapper-started 1000006000\n");
+        probe.mark(LaunchProbe.TERMINAL_SPAWNED, 1000002000);
+        var buffer = new ByteArrayOutputStream();
+
+        // When
+        long start = System.nanoTime();
+        probe.awaitAndReport(Duration.ofSeconds(5), new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        // Then
+        assertThat(System.nanoTime() - start).isLessThan(Duration.ofSeconds(2).toNanos());
+        assertThat(buffer.toString(StandardCharsets.UTF_8))
+                .contains("wrapper-started")
+                .contains("no jbang-started from the jbang wrapper");
+    }
+
+    @Test
+    @DisplayName("awaitAndReport should list all stages relative to the first one")
+    void awaitAndReport_Breakdown() throws Exception {
+        // Given
+        Path file = dir.resolve("probe.log");
+        Files.writeString(file, "shell-ready 1000005000\njbang-started 1000006000\n");
+        LaunchProbe probe = new LaunchProbe(file);
+        probe.mark(LaunchProbe.JVM_STARTED, 1000000000);
+        probe.mark(LaunchProbe.URI_RECEIVED, 1000000500);
+        probe.mark(LaunchProbe.TERMINAL_SPAWNED, 1000002000);
+        var buffer = new ByteArrayOutputStream();
+
+        // When
+        probe.awaitAndReport(Duration.ofSeconds(1), new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        // Then
+        assertThat(buffer.toString(StandardCharsets.UTF_8).lines()).containsExactly(
+                "Launch probe (" + file + "):",
+                "  jvm-started              0.0 ms  (+0.0 ms)",
+                "  uri-received             0.5 ms  (+0.5 ms)",
+                "  terminal-spawned         2.0 ms  (+1.5 ms)",
+                "  shell-ready              5.0 ms  (+3.0 ms)",
+                "  jbang-started            6.0 ms  (+1.0 ms)");
+        assertThat(Files.readAllLines(file)).contains("#   jbang-started            6.0 ms  (+1.0 ms)");
+    }
+
+    @Test
+    @DisplayName("awaitAndReport should give up when the shell never reports")
+    void awaitAndReport_Timeout() throws Exception {
+        // Given
+        Path file = dir.resolve("probe.log");
+        Files.createFile(file);
+        LaunchProbe probe = new LaunchProbe(file);
+        probe.mark(LaunchProbe.URI_RECEIVED, 1000);
+        var buffer = new ByteArrayOutputStream();
+
+        // When
+        probe.awaitAndReport(Duration.ofMillis(50), new PrintStream(buffer, true, StandardCharsets.UTF_8));
+
+        // Then
+        assertThat(buffer.toString(StandardCharsets.UTF_8))
+                .contains("(no timestamps from the terminal shell yet)");
+    }
+}
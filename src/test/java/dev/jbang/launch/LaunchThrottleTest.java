@@ -0,0 +1,166 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LaunchThrottle Tests")
+class LaunchThrottleTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("the token bucket should allow a burst and then refuse")
+    void tryAcquireToken_Burst() throws Exception {
+        // Given
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 1, 3, 0, 0, 0, 0);
+
+        // When/Then
+        assertThat(throttle.tryAcquireToken()).isTrue();
+        assertThat(throttle.tryAcquireToken()).isTrue();
+        assertThat(throttle.tryAcquireToken()).isTrue();
+        assertThat(throttle.tryAcquireToken()).isFalse();
+    }
+
+    @Test
+    @DisplayName("tokens should be shared by every throttle using the same directory")
+    void tryAcquireToken_Shared() throws Exception {
+        // Given
+        LaunchThrottle first = new LaunchThrottle(dir.resolve("state"), 1, 1, 0, 0, 0, 0);
+        LaunchThrottle second = new LaunchThrottle(dir.resolve("state"), 1, 1, 0, 0, 0, 0);
+
+        // When/Then
+        assertThat(first.tryAcquireToken()).isTrue();
+        assertThat(second.tryAcquireToken()).isFalse();
+    }
+
+    @Test
+    @DisplayName("tokens should be refilled over time")
+    void tryAcquireToken_Refill() throws Exception {
+        // Given: one token every 10 ms
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 6000, 1, 0, 0, 0, 0);
+        assertThat(throttle.tryAcquireToken()).isTrue();
+
+        // When
+        Thread.sleep(50);
+
+        // Then
+        assertThat(throttle.tryAcquireToken()).isTrue();
+    }
+
+    @Test
+    @DisplayName("a rate of zero should disable the bucket")
+    void tryAcquireToken_Disabled() throws Exception {
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 0, 1, 0, 0, 0, 0);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(throttle.tryAcquireToken()).isTrue();
+        }
+        assertThat(dir.resolve("state")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("a corrupt state file should be started over")
+    void tryAcquireToken_CorruptState() throws Exception {
+        // Given
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 1, 1, 0, 0, 0, 0);
+        throttle.tryAcquireToken();
+        Files.writeString(dir.resolve("state").resolve("state"), "garbage");
+
+        // When/Then
+        assertThat(throttle.tryAcquireToken()).isTrue();
+    }
+
+    @Test
+    @DisplayName("slots should be limited and reusable once closed")
+    void slots() throws Exception {
+        // Given
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 0, 1, 2, 1, 0, 0);
+
+        // When
+        LaunchThrottle.Slot first = throttle.tryAcquireDialogSlot();
+        LaunchThrottle.Slot second = throttle.tryAcquireDialogSlot();
+        LaunchThrottle.Slot third = throttle.tryAcquireDialogSlot();
+        LaunchThrottle.Slot terminal = throttle.tryAcquireTerminalSlot();
+
+        // Then
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(third).isNull();
+        assertThat(terminal).isNotNull();
+        assertThat(throttle.tryAcquireTerminalSlot()).isNull();
+
+        first.close();
+        assertThat(throttle.tryAcquireDialogSlot()).isNotNull();
+        second.close();
+        terminal.close();
+        assertThat(throttle.tryAcquireTerminalSlot()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("terminal slots should stay taken for a while after their terminal started")
+    void tryAcquireTerminalSlot_Started() throws Exception {
+        // Given
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 0, 1, 0, 1, 0, 200);
+        LaunchThrottle.Slot slot = throttle.tryAcquireTerminalSlot();
+
+        // When
+        slot.started();
+        slot.close();
+
+        // Then
+        assertThat(throttle.tryAcquireTerminalSlot()).isNull();
+        Thread.sleep(300);
+        assertThat(throttle.tryAcquireTerminalSlot()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("drops during the summary delay should be reported once by the first one")
+    void dropped_Summary() throws Exception {
+        // Given
+        LaunchThrottle throttle = new LaunchThrottle(dir.resolve("state"), 1, 1, 0, 0, 500, 0);
+
+        // When
+        var reporter = CompletableFuture.runAsync(() -> drop(throttle));
+        Thread.sleep(100);
+        long start = System.nanoTime();
+        drop(throttle);
+        drop(throttle);
+        long otherMillis = (System.nanoTime() - start) / 1_000_000;
+        long pending = throttle.withState(state -> state.dropped);
+        reporter.get();
+
+        // Then
+        assertThat(otherMillis).isLessThan(400);
+        assertThat(pending).isEqualTo(3);
+        long droppedAfter = throttle.withState(state -> state.dropped);
+        long reportingAfter = throttle.withState(state -> state.reportingUntil);
+        assertThat(droppedAfter).isZero();
+        assertThat(reportingAfter).isZero();
+    }
+
+    @Test
+    @DisplayName("notifications should not need AWT")
+    void notificationCommand() {
+        assertThat(LaunchThrottle.notificationCommand("Mac OS X", "Title", "Say \"hi\"")).isEqualTo(List.of(
+                "osascript", "-e", "display notification \"Say \\\"hi\\\"\" with title \"Title\""));
+        assertThat(LaunchThrottle.notificationCommand("Windows 11", "Title", "Message")).isNull();
+    }
+
+    private static void drop(LaunchThrottle throttle) {
+        try {
+            throttle.dropped(LaunchThrottle.Reason.RATE, false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
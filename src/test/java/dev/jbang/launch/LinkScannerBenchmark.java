@@ -0,0 +1,74 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput benchmark for {@link LinkScanner} on a synthetic corpus.
+ * <p>
+ * Not part of the regular build, run it with
+ * {@code ./mvnw test -Dtest=LinkScannerBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("LinkScanner Benchmark")
+class LinkScannerBenchmark {
+
+    private static final int DIRECTORIES = 100;
+    private static final int FILES_PER_DIRECTORY = 1_000;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("scan 100k files")
+    void scan_100kFiles() throws Exception {
+        String[] extensions = {"md", "adoc", "html"};
+        long bytes = 0;
+        for (int d = 0; d < DIRECTORIES; d++) {
+            Path dir = Files.createDirectories(root.resolve("section-" + d));
+            for (int f = 0; f < FILES_PER_DIRECTORY; f++) {
+                byte[] content = document(d, f).getBytes(StandardCharsets.UTF_8);
+                Files.write(dir.resolve("page-" + f + "." + extensions[f % extensions.length]), content);
+                bytes += content.length;
+            }
+        }
+        long files = (long) DIRECTORIES * FILES_PER_DIRECTORY;
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            LinkScanner.Result result = LinkScanner.scan(root);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            assertThat(result.getFiles()).isEqualTo(files);
+            assertThat(result.getLinks()).isEqualTo(files * 3);
+            assertThat(result.getProblems()).hasSize((int) files / 10);
+
+            System.out.printf("round %d: %,d files, %,d links in %.2f s (%,.0f files/s, %.1f MB/s)%n",
+                    round, result.getFiles(), result.getLinks(), seconds,
+                    files / seconds, bytes / seconds / (1024 * 1024));
+        }
+    }
+
+    private static String document(int dir, int file) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Section ").append(dir).append(" page ").append(file).append("\n\n");
+        for (int p = 0; p < 10; p++) {
+            sb.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor ")
+                    .append("incididunt ut labore et dolore magna aliqua.\n");
+        }
+        sb.append("Run [the demo](jbang:///run/Demo").append(file).append(".java) to try it.\n");
+        sb.append("Or jbang:///run/--fresh/demo@jbangdev/--verbose with the catalog.\n");
+        // Every tenth file carries a non-canonical link
+        sb.append(file % 10 == 0 ? "jbang:///run/Hello%2Ejava\n" : "jbang:///run/Hello.java\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("LinkScanner Tests")
+class LinkScannerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    @DisplayName("scan should accept canonical links in all document formats")
+    void scan_AcceptsCanonicalLinks() throws Exception {
+        // Given
+        Files.writeString(root.resolve("README.md"), "Try [hello](jbang:///run/Hello.java).\n");
+        Files.writeString(root.resolve("guide.adoc"), "= Guide\n\njbang:///run/Hello%20World.java[Run it]\n");
+        Files.writeString(root.resolve("index.html"), "<a href=\"jbang:///run/caf%C3%A9.java\">café</a>\n");
+
+        // When
+        LinkScanner.Result result = LinkScanner.scan(root);
+
+        // Then
+        assertThat(result.getFiles()).isEqualTo(3);
+        assertThat(result.getLinks()).isEqualTo(3);
+        assertThat(result.getProblems()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("scan should report problems with file and line")
+    void scan_ReportsProblems() throws Exception {
+        // Given
+        Path docs = Files.createDirectories(root.resolve("docs/nested"));
+        Files.writeString(docs.resolve("broken.md"), String.join("\n",
+                "# Broken links",
+                "",
+                "[bad escape](jbang:///run/%zz)",
+                "[encoded dot](jbang:///run/Hello%2Ejava)",
+                "Run `jbang:///run/a;b` at your own risk."));
+
+        // When
+        LinkScanner.Result result = LinkScanner.scan(root);
+
+        // Then
+        assertThat(result.getProblems())
+                .extracting(LinkScanner.Problem::file, LinkScanner.Problem::line, LinkScanner.Problem::kind)
+                .containsExactly(
+                        tuple(docs.resolve("broken.md"), 3, LinkScanner.Kind.DECODING_ERROR),
+                        tuple(docs.resolve("broken.md"), 4, LinkScanner.Kind.NON_CANONICAL),
+                        tuple(docs.resolve("broken.md"), 5, LinkScanner.Kind.SECURITY_REJECT));
+        assertThat(result.getProblems().get(1).detail()).isEqualTo("expected jbang:///run/Hello.java");
+    }
+
+    @Test
+    @DisplayName("scan should ignore files that are not documents")
+    void scan_IgnoresOtherFiles() throws Exception {
+        // Given
+        Files.writeString(root.resolve("Script.java"), "// jbang:///run/a;b\n");
+
+        // When
+        LinkScanner.Result result = LinkScanner.scan(root);
+
+        // Then
+        assertThat(result.getFiles()).isZero();
+        assertThat(result.getProblems()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("scan should find links embedded in launch page URLs")
+    void scan_FindsEmbeddedLinks() throws Exception {
+        // Given
+        Files.writeString(root.resolve("README.adoc"),
+                "https://jbang.dev/launch?jbang:///-m/com.example.App/com.example:app:1.0.0[App]\n");
+
+        // When
+        LinkScanner.Result result = LinkScanner.scan(root);
+
+        // Then
+        assertThat(result.getLinks()).isEqualTo(1);
+        assertThat(result.getProblems()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("checkLink should report each kind of problem separately")
+    void checkLink_ReportsEachKind() {
+        // Given
+        List<LinkScanner.Problem> problems = new java.util.ArrayList<>();
+
+        // When
+        LinkScanner.checkLink(root, 1, "jbang:///run/a%3Bb", problems);
+
+        // Then
+        assertThat(problems).extracting(LinkScanner.Problem::kind)
+                .containsExactly(LinkScanner.Kind.NON_CANONICAL, LinkScanner.Kind.SECURITY_REJECT);
+    }
+
+    @Test
+    @DisplayName("scanFile should read small files through a reused buffer and map large ones")
+    void scanFile_SmallAndLargeFiles() throws Exception {
+        // Given
+        Path small = Files.writeString(root.resolve("small.md"), "padding padding [run](jbang:///run/A.java)\n");
+        Path smaller = Files.writeString(root.resolve("smaller.md"), "no links\n");
+        Path large = Files.writeString(root.resolve("large.md"),
+                "x\n".repeat(LinkScanner.MAP_THRESHOLD) + "[run](jbang:///run/B.java)\n");
+
+        // When
+        LinkScanner.Result first = LinkScanner.scanFile(small);
+        LinkScanner.Result second = LinkScanner.scanFile(smaller);
+        LinkScanner.Result third = LinkScanner.scanFile(large);
+
+        // Then
+        assertThat(first.getLinks()).isEqualTo(1);
+        assertThat(second.getLinks()).isZero();
+        assertThat(third.getLinks()).isEqualTo(1);
+        assertThat(third.getProblems()).isEmpty();
+    }
+}
@@ -0,0 +1,119 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MetricsServer Tests")
+class MetricsServerTest {
+
+    private MetricsServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = MetricsServer.start(0);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("/metrics should serve counters in Prometheus text format")
+    void metrics_ServesPrometheusText() throws Exception {
+        // Given
+        LaunchMetrics.uriReceived();
+        LaunchMetrics.dialogAnswered(true);
+        LaunchMetrics.terminalSpawned(3_000_000);
+
+        // When
+        HttpResponse<String> response = get("/metrics");
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("text/plain; version=0.0.4"));
+        assertThat(response.body())
+                .contains("# TYPE jbang_launch_uris_received_total counter")
+                .containsPattern("(?m)^jbang_launch_uris_received_total [1-9]")
+                .containsPattern("(?m)^jbang_launch_dialog_decisions_total\\{decision=\"approve\"\\} [1-9]")
+                .containsPattern("(?m)^jbang_launch_terminal_spawn_seconds_bucket\\{le=\"0.005\"\\} [1-9]")
+                .containsPattern("(?m)^jbang_launch_terminal_spawn_seconds_count [1-9]");
+    }
+
+    @Test
+    @DisplayName("/metrics should count validation rejects by rule")
+    void metrics_CountsRejectsByRule() throws Exception {
+        // Given
+        long before = rejects(get("/metrics").body(), "shell_metacharacters");
+
+        // When
+        assertThatThrownBy(() -> TerminalLauncher.launchInTerminal(List.of("jbang", "run", "a;b")))
+                .isInstanceOf(CommandSecurityValidator.ValidationException.class);
+        HttpResponse<String> response = get("/metrics");
+
+        // Then
+        assertThat(rejects(response.body(), "shell_metacharacters")).isEqualTo(before + 1);
+        assertThat(response.body()).contains("jbang_launch_validation_rejects_total{rule=\"command_injection\"}");
+    }
+
+    private static long rejects(String body, String rule) {
+        Matcher m = Pattern.compile("(?m)^jbang_launch_validation_rejects_total\\{rule=\"" + rule + "\"\\} (\\d+)")
+                .matcher(body);
+        assertThat(m.find()).isTrue();
+        return Long.parseLong(m.group(1));
+    }
+
+    @Test
+    @DisplayName("/metrics should reject other methods than GET")
+    void metrics_RejectsPost() throws Exception {
+        // When
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(uri("/metrics")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        // Then
+        assertThat(response.statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    @DisplayName("startIfEnabled should do nothing unless the port property is set")
+    void startIfEnabled_DisabledByDefault() throws Exception {
+        assertThat(System.getProperty(MetricsServer.PORT_PROPERTY)).isNull();
+        assertThat(MetricsServer.startIfEnabled()).isNull();
+    }
+
+    @Test
+    @DisplayName("startIfEnabled should reject an invalid port")
+    void startIfEnabled_InvalidPort() {
+        System.setProperty(MetricsServer.PORT_PROPERTY, "not-a-port");
+        try {
+            assertThatThrownBy(MetricsServer::startIfEnabled)
+                    .hasMessage("Invalid jbang.launch.metrics.port: not-a-port");
+        } finally {
+            System.clearProperty(MetricsServer.PORT_PROPERTY);
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri(path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,116 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("MultiCommandRunner Tests")
+class MultiCommandRunnerTest {
+
+    @Test
+    @DisplayName("LineSplitter should prefix every complete line")
+    void lineSplitter_PrefixesLines() {
+        // Given
+        var buffer = new ByteArrayOutputStream();
+        var splitter = new MultiCommandRunner.LineSplitter("1 | ", new PrintStream(buffer, true), 64);
+        byte[] data = "hello\r\nworld\n\npartial".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        splitter.accept(data, 0, data.length);
+        splitter.flush();
+
+        // Then
+        assertThat(buffer.toString(StandardCharsets.UTF_8).lines())
+                .containsExactly("1 | hello", "1 | world", "1 | ", "1 | partial");
+    }
+
+    @Test
+    @DisplayName("LineSplitter should split lines longer than its buffer")
+    void lineSplitter_SplitsLongLines() {
+        // Given
+        var buffer = new ByteArrayOutputStream();
+        var splitter = new MultiCommandRunner.LineSplitter("> ", new PrintStream(buffer, true), 4);
+        byte[] data = "abcdefghij\n".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        splitter.accept(data, 0, data.length);
+
+        // Then
+        assertThat(buffer.toString(StandardCharsets.UTF_8).lines())
+                .containsExactly("> abcd", "> efgh", "> ij");
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    @DisplayName("run should merge the output of all commands")
+    void run_MergesOutput() throws Exception {
+        // Given
+        var buffer = new ByteArrayOutputStream();
+        List<List<String>> commands = List.of(
+                List.of("sh", "-c", "echo first"),
+                List.of("sh", "-c", "echo second"));
+
+        // When
+        int exitCode = MultiCommandRunner.run(commands, new PrintStream(buffer, true), false);
+
+        // Then
+        assertThat(exitCode).isZero();
+        assertThat(buffer.toString(StandardCharsets.UTF_8).lines())
+                .contains("1 | first", "2 | second", "1 | exited with code 0", "2 | exited with code 0");
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    @DisplayName("run should merge stderr and report the first failing exit code")
+    void run_ReportsFailure() throws Exception {
+        // Given
+        var buffer = new ByteArrayOutputStream();
+        List<List<String>> commands = List.of(List.of("true"), List.of("ls", "/does-not-exist"));
+
+        // When
+        int exitCode = MultiCommandRunner.run(commands, new PrintStream(buffer, true), false);
+
+        // Then
+        assertThat(exitCode).isNotZero();
+        assertThat(buffer.toString(StandardCharsets.UTF_8).lines())
+                .anyMatch(line -> line.startsWith("2 | ") && line.contains("/does-not-exist"));
+    }
+
+    @Test
+    @DisplayName("runAll should reject the whole batch if one command is unsafe")
+    void runAll_RejectsUnsafeCommand() {
+        // Given
+        List<List<String>> commands = List.of(
+                List.of("jbang", "run", "Hello.java"),
+                List.of("jbang", "run", "Hello.java;rm"));
+
+        // When/Then
+        assertThatThrownBy(() -> MultiCommandRunner.runAll(commands, System.out, false))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    @DisplayName("runAll should refuse commands of any other scheme than jbang")
+    void runAll_RejectsOtherScheme() {
+        // Given
+        var buffer = new ByteArrayOutputStream();
+        List<List<String>> commands = List.of(
+                UrlConverter.urlToCommand("jbang:///run/Hello.java"),
+                UrlConverter.urlToCommand("uname:///-a"));
+
+        // When/Then
+        assertThatThrownBy(() -> MultiCommandRunner.runAll(commands, new PrintStream(buffer, true), false))
+                .isInstanceOf(SecurityException.class)
+                .hasMessageContaining("uname");
+        assertThat(buffer.toString(StandardCharsets.UTF_8)).isEmpty();
+    }
+}
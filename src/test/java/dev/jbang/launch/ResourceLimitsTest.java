@@ -0,0 +1,144 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ResourceLimits Tests")
+class ResourceLimitsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("systemd mode should run the command in a scope with the limits")
+    void systemdCommand() {
+        // Given
+        var limits = new ResourceLimits(ResourceLimits.Mode.SYSTEMD, "2G", "50", "256", null);
+
+        // When
+        String command = limits.systemdCommand("jbang run it's.java", "jbang-launch-1-1");
+
+        // Then
+        assertThat(command).startsWith("systemd-run --user --scope --quiet --unit=jbang-launch-1-1 "
+                + "'--description=jbang:// launch' -p MemoryMax=2G -p CPUWeight=50 -p TasksMax=256 "
+                + "-- bash -c 'jbang run it'\"'\"'s.java; __rc=$?;");
+        assertThat(command).endsWith("exit $__rc'");
+    }
+
+    @Test
+    @DisplayName("only configured limits should be passed")
+    void systemdCommand_OnlyConfigured() {
+        // Given
+        var limits = new ResourceLimits(ResourceLimits.Mode.AUTO, null, null, null, null);
+
+        // When/Then
+        assertThat(limits.systemdCommand("jbang version", "u")).doesNotContain("-p ");
+    }
+
+    @Test
+    @DisplayName("invalid limits should be rejected")
+    void invalidLimits() {
+        assertThatThrownBy(() -> new ResourceLimits(ResourceLimits.Mode.AUTO, "2G; rm", null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(ResourceLimits.MEMORY_MAX_PROPERTY);
+        assertThatThrownBy(() -> new ResourceLimits(ResourceLimits.Mode.AUTO, null, "0", null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between 1 and 10000");
+    }
+
+    @Test
+    @DisplayName("systemd values should be converted for cgroup files")
+    void cgroupValue() {
+        assertThat(ResourceLimits.cgroupValue("512")).isEqualTo("512");
+        assertThat(ResourceLimits.cgroupValue("64K")).isEqualTo("65536");
+        assertThat(ResourceLimits.cgroupValue("2G")).isEqualTo("2147483648");
+        assertThat(ResourceLimits.cgroupValue("infinity")).isEqualTo("max");
+        assertThatThrownBy(() -> ResourceLimits.cgroupValue("99999999T")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("limits that overflow should be rejected")
+    void constructor_TooLarge() {
+        assertThatThrownBy(() -> new ResourceLimits(ResourceLimits.Mode.CGROUP, "99999999T", null, null, dir))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(ResourceLimits.MEMORY_MAX_PROPERTY);
+        assertThatThrownBy(() -> new ResourceLimits(ResourceLimits.Mode.CGROUP, null, null, "99999999999999999999", dir))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(ResourceLimits.TASKS_MAX_PROPERTY);
+    }
+
+    @Test
+    @DisplayName("cgroup mode should write the limits into a new child cgroup")
+    void createCgroup() throws Exception {
+        // Given
+        Files.createFile(dir.resolve("cgroup.procs"));
+        var limits = new ResourceLimits(ResourceLimits.Mode.CGROUP, "1G", "20", "infinity", dir);
+
+        // When
+        Path group = limits.createCgroup("jbang-launch-1-1");
+
+        // Then
+        assertThat(group).isEqualTo(dir.resolve("jbang-launch-1-1"));
+        assertThat(Files.readString(group.resolve("memory.max"))).isEqualTo("1073741824");
+        assertThat(Files.readString(group.resolve("cpu.weight"))).isEqualTo("20");
+        assertThat(Files.readString(group.resolve("pids.max"))).isEqualTo("max");
+        assertThat(limits.cgroupCommand("jbang version", group)).isEqualTo(
+                "bash -c '{ echo $$ > '\"'\"'" + group.resolve("cgroup.procs") + "'\"'\"' || echo '\"'\"'WARN: Cannot use cgroup "
+                        + group + ", running without resource limits'\"'\"' 1>&2; }; jbang version; "
+                        + ResourceLimits.REPORT.replace("'", "'\"'\"'") + "'; rmdir '" + group + "' 2>/dev/null");
+    }
+
+    @Test
+    @DisplayName("cgroup mode should refuse a directory that is not a cgroup")
+    void createCgroup_NotACgroup() {
+        // Given
+        var limits = new ResourceLimits(ResourceLimits.Mode.CGROUP, "1G", null, null, dir);
+
+        // When/Then
+        assertThatThrownBy(() -> limits.createCgroup("jbang-launch-1-1"))
+                .isInstanceOf(IOException.class);
+        assertThat(limits.wrapShellCommand("jbang version")).isEqualTo("jbang version");
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("the usage report should keep the exit code of the command")
+    void report_KeepsExitCode() throws Exception {
+        // When
+        Process shell = new ProcessBuilder("bash", "-c", "(exit 3); " + ResourceLimits.REPORT).start();
+        String output = new String(shell.getInputStream().readAllBytes());
+
+        // Then
+        assertThat(shell.waitFor()).isEqualTo(3);
+        assertThat(output).startsWith("jbang-launch: exit code 3, cpu ").contains("memory peak ", "tasks peak ");
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("the command should still run, with a warning, if the cgroup cannot be joined")
+    void cgroupCommand_CannotJoin() throws Exception {
+        // Given
+        var limits = new ResourceLimits(ResourceLimits.Mode.CGROUP, "1G", null, null, dir);
+        Path group = dir.resolve("gone");
+
+        // When
+        Process shell = new ProcessBuilder("bash", "-c", limits.cgroupCommand("echo ran", group)).start();
+        String output = new String(shell.getInputStream().readAllBytes());
+        String error = new String(shell.getErrorStream().readAllBytes());
+
+        // Then
+        shell.waitFor();
+        assertThat(output).startsWith("ran\njbang-launch: exit code 0");
+        assertThat(error).contains("WARN: Cannot use cgroup " + group + ", running without resource limits");
+    }
+}
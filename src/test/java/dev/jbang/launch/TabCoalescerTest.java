@@ -0,0 +1,78 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("TabCoalescer Tests")
+class TabCoalescerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("a lone launch should get its own command back")
+    void coalesce_Single() throws Exception {
+        // Given
+        TabCoalescer coalescer = new TabCoalescer(dir.resolve("spool"), 10);
+
+        // When
+        List<String> scripts = coalescer.coalesce("jbang run a.java");
+
+        // Then
+        assertThat(scripts).containsExactly("jbang run a.java");
+        assertThat(dir.resolve("spool")).isDirectoryNotContaining("glob:**.cmd");
+    }
+
+    @Test
+    @DisplayName("launches within the window should be opened together by the first one")
+    void coalesce_Window() throws Exception {
+        // Given
+        TabCoalescer coalescer = new TabCoalescer(dir.resolve("spool"), 500);
+
+        // When
+        var first = CompletableFuture.supplyAsync(() -> coalesce(coalescer, "jbang run a.java"));
+        Thread.sleep(100);
+        var second = CompletableFuture.supplyAsync(() -> coalesce(coalescer, "jbang run b.java"));
+
+        // Then
+        assertThat(first.get()).containsExactly("jbang run a.java", "jbang run b.java");
+        assertThat(second.get()).isEmpty();
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    @DisplayName("a spool directory accessible by others should be refused")
+    void coalesce_UnsafeDirectory() throws Exception {
+        // Given
+        Path spool = Files.createDirectory(dir.resolve("spool"),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Files.setPosixFilePermissions(spool, PosixFilePermissions.fromString("rwxrwxrwx"));
+        TabCoalescer coalescer = new TabCoalescer(spool, 10);
+
+        // When / Then
+        assertThatThrownBy(() -> coalescer.coalesce("jbang run a.java"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("only accessible by its owner");
+    }
+
+    private static List<String> coalesce(TabCoalescer coalescer, String script) {
+        try {
+            return coalescer.coalesce(script);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package dev.jbang.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TerminalLauncher Tests")
+class TerminalLauncherTest {
+
+    private static final List<String> SCRIPTS = List.of("jbang run a.java; exec bash", "jbang run it's.java; exec bash");
+
+    @Test
+    @DisplayName("a single command should open a plain window")
+    void linuxTerminalCommands_SingleCommand() {
+        // When
+        var gnome = TerminalLauncher.linuxTerminalCommands("gnome-terminal", List.of("jbang version"));
+        var xterm = TerminalLauncher.linuxTerminalCommands("xterm", List.of("jbang version"));
+
+        // Then
+        assertThat(gnome).containsExactly(List.of("gnome-terminal", "--", "bash", "-c", "jbang version"));
+        assertThat(xterm).containsExactly(List.of("xterm", "bash", "-c", "jbang version"));
+    }
+
+    @Test
+    @DisplayName("gnome-terminal should open all commands as tabs in one invocation")
+    void linuxTerminalCommands_GnomeTerminal() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("gnome-terminal", SCRIPTS);
+
+        // Then
+        assertThat(commands).containsExactly(List.of("gnome-terminal",
+                "--window", "-e", "bash -c 'jbang run a.java; exec bash'",
+                "--tab", "-e", "bash -c 'jbang run it'\"'\"'s.java; exec bash'"));
+    }
+
+    @Test
+    @DisplayName("mate-terminal should open all commands as tabs in one invocation")
+    void linuxTerminalCommands_MateTerminal() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("mate-terminal", SCRIPTS);
+
+        // Then
+        assertThat(commands).hasSize(1);
+        assertThat(commands.get(0)).startsWith("mate-terminal", "--window", "-e").contains("--tab");
+    }
+
+    @Test
+    @DisplayName("xfce4-terminal should open all commands as tabs in one invocation")
+    void linuxTerminalCommands_Xfce4Terminal() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("xfce4-terminal", SCRIPTS);
+
+        // Then
+        assertThat(commands).containsExactly(List.of("xfce4-terminal",
+                "--window", "-e", "bash -c 'jbang run a.java; exec bash'",
+                "--tab", "-e", "bash -c 'jbang run it'\"'\"'s.java; exec bash'"));
+    }
+
+    @Test
+    @DisplayName("konsole should add a tab per command")
+    void linuxTerminalCommands_Konsole() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("konsole", SCRIPTS);
+
+        // Then
+        assertThat(commands).containsExactly(
+                List.of("konsole", "--new-tab", "-e", "bash", "-c", SCRIPTS.get(0)),
+                List.of("konsole", "--new-tab", "-e", "bash", "-c", SCRIPTS.get(1)));
+    }
+
+    @Test
+    @DisplayName("tilix should add a session per further command")
+    void linuxTerminalCommands_Tilix() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("tilix", SCRIPTS);
+
+        // Then
+        assertThat(commands).containsExactly(
+                List.of("tilix", "-e", "bash -c 'jbang run a.java; exec bash'"),
+                List.of("tilix", "--action=app-new-session", "-e", "bash -c 'jbang run it'\"'\"'s.java; exec bash'"));
+    }
+
+    @Test
+    @DisplayName("xterm has no tabs and should open a window per command")
+    void linuxTerminalCommands_Xterm() {
+        // When
+        var commands = TerminalLauncher.linuxTerminalCommands("xterm", SCRIPTS);
+
+        // Then
+        assertThat(commands).containsExactly(
+                List.of("xterm", "bash", "-c", SCRIPTS.get(0)),
+                List.of("xterm", "bash", "-c", SCRIPTS.get(1)));
+    }
+}
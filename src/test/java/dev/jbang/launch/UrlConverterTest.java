@@ -55,6 +55,20 @@ class UrlConverterTest {
         assertThat(result.toString()).isEqualTo("jbang:///run/file@with%23special$chars.java");
     }
 
+    @Test
+    @DisplayName("commandToUrl should encode slashes within arguments")
+    void commandToUrl_Slashes() {
+        // Given
+        String[] args = {"jbang", "run", "github:jbangdev/jbang-action@main"};
+
+        // When
+        var result = UrlConverter.commandToUrl(args);
+
+        // Then
+        assertThat(result.toASCIIString()).isEqualTo("jbang:///run/github:jbangdev%2Fjbang-action@main");
+        assertThat(UrlConverter.urlToCommand(result.toString())).containsExactly(args);
+    }
+
     @Test
     @DisplayName("commandToUrl should handle unicode characters")
     void commandToUrl_UnicodeCharacters() {